@@ -0,0 +1,70 @@
+#!/bin/bash
+
+# Starts X9 Chat AI from the fast-start build. Build it first with:
+#   mvn -Pfaststart package
+#
+#   ./faststart.sh cds [app args]         extracted jar with the AppCDS archive from the training run
+#   ./faststart.sh checkpoint [app args]  start on a CRaC JDK, wait until ingestion is ready, checkpoint
+#   ./faststart.sh restore                restore the checkpointed JVM, index already loaded
+#
+# JAVA picks the java binary (checkpoint and restore need a CRaC-enabled JDK such as Azul Zulu
+# or BellSoft Liberica builds with CRaC). PORT defaults to 8081.
+
+cd "$(dirname "$0")"
+
+JAVA="${JAVA:-java}"
+PORT="${PORT:-8081}"
+FASTSTART_DIR="target/faststart"
+JAR="$FASTSTART_DIR/x9-chat-ai-1.0.0.jar"
+ARCHIVE="$FASTSTART_DIR/x9-chat-ai-1.0.0.jsa"
+CRAC_DIR="${CRAC_DIR:-$FASTSTART_DIR/crac}"
+JVM_ARGS="--add-modules jdk.incubator.vector"
+
+MODE="$1"
+shift
+
+if [ "$MODE" != "restore" ] && [ ! -f "$JAR" ]; then
+    echo "❌ $JAR not found. Run: mvn -Pfaststart package"
+    exit 1
+fi
+
+case "$MODE" in
+    cds)
+        echo "🚀 Starting with AppCDS archive $ARCHIVE"
+        exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" $JVM_ARGS -jar "$JAR" --server.port="$PORT" "$@"
+        ;;
+    checkpoint)
+        rm -rf "$CRAC_DIR"
+        mkdir -p "$CRAC_DIR"
+        "$JAVA" -XX:CRaCCheckpointTo="$CRAC_DIR" $JVM_ARGS -jar "$JAR" --server.port="$PORT" "$@" &
+        PID=$!
+
+        echo "⏳ Waiting for document ingestion to finish (PID: $PID)..."
+        until curl -s "http://localhost:$PORT/api/status" | grep -q '"phase":"ready"'; do
+            if ! kill -0 "$PID" 2>/dev/null; then
+                echo "❌ The service exited before ingestion finished"
+                exit 1
+            fi
+            sleep 1
+        done
+
+        # Idle keep-alive connections to Ollama are closed after 5 seconds; CRaC refuses open sockets
+        sleep 6
+        echo "📸 Checkpointing to $CRAC_DIR..."
+        jcmd "$PID" JDK.checkpoint
+        wait "$PID"
+        echo "✅ Checkpoint written. Start it with: ./faststart.sh restore"
+        ;;
+    restore)
+        if [ ! -d "$CRAC_DIR" ]; then
+            echo "❌ No checkpoint in $CRAC_DIR. Run: ./faststart.sh checkpoint"
+            exit 1
+        fi
+        echo "🚀 Restoring from $CRAC_DIR"
+        exec "$JAVA" -XX:CRaCRestoreFrom="$CRAC_DIR"
+        ;;
+    *)
+        echo "Usage: $0 cds|checkpoint|restore [app args]"
+        exit 1
+        ;;
+esac
@@ -0,0 +1,62 @@
+package com.x9chat.benchmark;
+
+import com.x9chat.ingestion.StructureAwareSplitter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.transformer.splitter.TokenTextSplitter;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting and ingestion throughput for DocumentConfig-style loads, in notes per second.
+ * Embedding uses the deterministic fake, so ingest() measures everything but the model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    private static final int NOTES = 200;
+
+    @Param({"4", "12"})
+    public int sectionsPerNote;
+
+    private List<Document> notes;
+    private StructureAwareSplitter structureAwareSplitter;
+    private TokenTextSplitter tokenTextSplitter;
+    private DeterministicEmbeddingModel embeddingModel;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        notes = SyntheticCorpus.notes(NOTES, sectionsPerNote, 7);
+        structureAwareSplitter = new StructureAwareSplitter(512, 64);
+        tokenTextSplitter = new TokenTextSplitter();
+        embeddingModel = new DeterministicEmbeddingModel(768);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public List<Document> structureAwareSplit() {
+        return structureAwareSplitter.apply(notes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public List<Document> tokenTextSplit() {
+        return tokenTextSplitter.apply(notes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NOTES)
+    public VectorStore ingest() {
+        VectorStore vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        vectorStore.add(structureAwareSplitter.apply(notes));
+        return vectorStore;
+    }
+}
@@ -0,0 +1,93 @@
+package com.x9chat.benchmark;
+
+import org.springframework.ai.document.Document;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates meeting notes and chunks shaped like the files under public/, for benchmarks.
+ */
+public final class SyntheticCorpus {
+
+    private static final String[] TOPICS = {
+        "Wins", "Blockers", "Workload", "Career growth", "Team dynamics", "Action items", "Study plan"
+    };
+    private static final String[] PHRASES = {
+        "shipped the onboarding flow ahead of schedule",
+        "feels stretched between the migration and support rotation",
+        "asked for more pairing time with the platform team",
+        "is studying for the cloud certification twice a week",
+        "raised concerns about deadline pressure on the release",
+        "mentored a new joiner through the first code review",
+        "wants clearer priorities for the next quarter",
+        "reported better work-life balance since the on-call change"
+    };
+
+    private SyntheticCorpus() {
+    }
+
+    /**
+     * Returns one chunk-sized document per index, spread over the given number of users.
+     */
+    public static List<Document> chunks(int count, int users, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "user" + (i % users);
+            StringBuilder content = new StringBuilder("## ").append(TOPICS[random.nextInt(TOPICS.length)]).append('\n');
+            for (int line = 0; line < 4; line++) {
+                content.append("- ").append(username).append(' ')
+                       .append(PHRASES[random.nextInt(PHRASES.length)]).append(" (#").append(i).append(")\n");
+            }
+            documents.add(new Document(content.toString(), metadata(username, date(i))));
+        }
+        return documents;
+    }
+
+    /**
+     * Returns whole markdown notes with a heading per topic and a few bullets or paragraphs each.
+     */
+    public static List<Document> notes(int count, int sectionsPerNote, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String username = "user" + (i % 20);
+            String date = date(i);
+            StringBuilder content = new StringBuilder("# 1:1 with ").append(username).append(" - ").append(date).append("\n\n");
+            for (int section = 0; section < sectionsPerNote; section++) {
+                content.append("## ").append(TOPICS[section % TOPICS.length]).append("\n\n");
+                if (random.nextBoolean()) {
+                    for (int bullet = 0; bullet < 5; bullet++) {
+                        content.append("- ").append(PHRASES[random.nextInt(PHRASES.length)]).append('\n');
+                    }
+                } else {
+                    for (int sentence = 0; sentence < 6; sentence++) {
+                        content.append(username).append(' ').append(PHRASES[random.nextInt(PHRASES.length)]).append(". ");
+                    }
+                    content.append('\n');
+                }
+                content.append('\n');
+            }
+            documents.add(new Document(content.toString(), metadata(username, date)));
+        }
+        return documents;
+    }
+
+    private static Map<String, Object> metadata(String username, String date) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("source", date + ".md");
+        metadata.put("username", username);
+        metadata.put("type", "team-activity");
+        metadata.put("date", date);
+        return metadata;
+    }
+
+    private static String date(int index) {
+        return LocalDate.of(2023, 1, 1).plusDays(index % 1000).toString();
+    }
+}
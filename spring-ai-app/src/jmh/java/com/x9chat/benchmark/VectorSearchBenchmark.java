@@ -0,0 +1,119 @@
+package com.x9chat.benchmark;
+
+import com.x9chat.vectorstore.AbstractEmbeddingVectorStore;
+import com.x9chat.vectorstore.DenseVectorStore;
+import com.x9chat.vectorstore.QuantizedVectorStore;
+import com.x9chat.vectorstore.Quantization;
+import com.x9chat.vectorstore.ShardedVectorStore;
+import com.x9chat.vectorstore.Sharding;
+import com.x9chat.vectorstore.SimilarityKernel;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-K similarity search over synthetic corpora, as X9ChatService.askQuestion runs it.
+ *
+ * The 1M-chunk corpus at 768 dimensions needs roughly 6 GB of heap; raise -Xmx with
+ * -jvmArgsAppend or restrict the run with -p corpusSize=1000,100000 on smaller machines.
+ * The quantized stores keep their full-precision vectors in a temporary file instead.
+ * "simple" is Spring AI's SimpleVectorStore, kept as the baseline for the other stores.
+ * A "-scalar" suffix runs a store with the scalar similarity kernel instead of the vectorized
+ * one; SimpleVectorStore has no kernel, so it only runs once.
+ * With -p shards=N the other stores are split into N hash shards searched in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class VectorSearchBenchmark {
+
+    private static final int QUERY_COUNT = 64;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int corpusSize;
+
+    @Param({"768"})
+    public int dimensions;
+
+    @Param({"5"})
+    public int topK;
+
+    @Param({"simple", "none", "int8", "binary", "none-scalar", "int8-scalar", "binary-scalar"})
+    public String store;
+
+    @Param({"0"})
+    public int shards;
+
+    private VectorStore vectorStore;
+    private SearchRequest[] queries;
+    private int nextQuery;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DeterministicEmbeddingModel embeddingModel = new DeterministicEmbeddingModel(dimensions);
+        String[] variant = store.split("-", 2);
+        String quantization = variant[0];
+        SimilarityKernel similarityKernel = SimilarityKernel.select(variant.length > 1 ? variant[1] : "auto");
+        if (quantization.equals("simple")) {
+            vectorStore = SimpleVectorStore.builder(embeddingModel).build();
+        } else if (shards > 0) {
+            vectorStore = new ShardedVectorStore(embeddingModel, Sharding.HASH, shards,
+                    shard -> newStore(embeddingModel, quantization, similarityKernel));
+        } else {
+            vectorStore = newStore(embeddingModel, quantization, similarityKernel);
+        }
+
+        for (int offset = 0; offset < corpusSize; offset += BATCH_SIZE) {
+            int count = Math.min(BATCH_SIZE, corpusSize - offset);
+            vectorStore.add(SyntheticCorpus.chunks(count, 50, offset));
+        }
+
+        queries = new SearchRequest[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = SearchRequest.builder().query("How is user" + i + " feeling about the workload?").topK(topK).build();
+        }
+    }
+
+    private static AbstractEmbeddingVectorStore newStore(DeterministicEmbeddingModel embeddingModel, String quantizationName,
+                                                         SimilarityKernel similarityKernel) {
+        Quantization quantization = Quantization.fromProperty(quantizationName);
+        if (quantization == Quantization.NONE) {
+            return new DenseVectorStore(embeddingModel, similarityKernel);
+        }
+        try {
+            Path vectorsFile = Files.createTempFile("x9-bench-vectors", ".f32");
+            return new QuantizedVectorStore(embeddingModel, similarityKernel, quantization, vectorsFile, 4);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (vectorStore instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        return vectorStore.similaritySearch(queries[nextQuery++ % QUERY_COUNT]);
+    }
+}
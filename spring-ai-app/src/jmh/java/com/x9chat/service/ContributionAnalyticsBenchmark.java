@@ -0,0 +1,130 @@
+package com.x9chat.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.x9chat.service.GitHubService.ContributionData;
+import com.x9chat.service.GitHubService.DailyContribution;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GitHubService contribution analytics over synthetic multi-year contribution calendars.
+ * Lives in the service package to reach the package-private analysis methods.
+ * parseContributionData reads a prebuilt tree; parseContributionStream parses the
+ * serialized GraphQL response the way fetchContributionData now does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContributionAnalyticsBenchmark {
+
+    @Param({"1", "3", "5"})
+    public int years;
+
+    private GitHubService gitHubService;
+    private JsonNode userData;
+    private byte[] response;
+    private JsonFactory jsonFactory;
+    private List<DailyContribution> contributions;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        gitHubService = new GitHubService(new SimpleMeterRegistry());
+        userData = syntheticUser(years);
+        ObjectMapper objectMapper = new ObjectMapper();
+        jsonFactory = objectMapper.getFactory();
+        response = objectMapper.writeValueAsBytes(Map.of("data", Map.of("user", userData)));
+        contributions = gitHubService.parseContributionData(userData, "benchmark-user").getDailyContributions();
+    }
+
+    @Benchmark
+    public ContributionData parseContributionData() {
+        return gitHubService.parseContributionData(userData, "benchmark-user");
+    }
+
+    @Benchmark
+    public ContributionData parseContributionStream() throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            return gitHubService.parseContributionData(parser, "benchmark-user");
+        }
+    }
+
+    @Benchmark
+    public int currentStreak() {
+        return gitHubService.calculateCurrentStreak(contributions);
+    }
+
+    @Benchmark
+    public int longestStreak() {
+        return gitHubService.calculateLongestStreak(contributions);
+    }
+
+    @Benchmark
+    public Map<String, Integer> weeklyPattern() {
+        return gitHubService.analyzeWeeklyPattern(contributions);
+    }
+
+    @Benchmark
+    public String trend() {
+        return gitHubService.analyzeTrend(contributions);
+    }
+
+    /**
+     * Builds a GraphQL "user" node shaped like the contributionsCollection query response.
+     */
+    private static JsonNode syntheticUser(int years) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        SplittableRandom random = new SplittableRandom(years);
+
+        ObjectNode user = objectMapper.createObjectNode();
+        ObjectNode collection = user.putObject("contributionsCollection");
+        collection.put("totalCommitContributions", 1200 * years);
+        collection.put("totalIssueContributions", 80 * years);
+        collection.put("totalPullRequestContributions", 150 * years);
+        collection.put("totalPullRequestReviewContributions", 300 * years);
+        collection.put("restrictedContributionsCount", 40 * years);
+
+        ObjectNode calendar = collection.putObject("contributionCalendar");
+        ArrayNode weeks = calendar.putArray("weeks");
+        LocalDate day = LocalDate.now().minusYears(years);
+        int total = 0;
+        ArrayNode week = null;
+        while (!day.isAfter(LocalDate.now())) {
+            int weekday = day.getDayOfWeek().getValue() % 7;
+            if (week == null || weekday == 0) {
+                week = weeks.addObject().putArray("contributionDays");
+            }
+            int count = weekday == 0 || weekday == 6 ? random.nextInt(3) : random.nextInt(12);
+            total += count;
+            week.addObject()
+                .put("contributionCount", count)
+                .put("date", day.toString())
+                .put("weekday", weekday);
+            day = day.plusDays(1);
+        }
+        calendar.put("totalContributions", total);
+
+        ArrayNode repositories = user.putObject("repositories").putArray("nodes");
+        String[] languages = {"Java", "TypeScript", "Go", "Python"};
+        for (int i = 0; i < 20; i++) {
+            ObjectNode repository = repositories.addObject();
+            repository.put("name", "repo-" + i);
+            repository.putObject("primaryLanguage").put("name", languages[i % languages.length]);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,244 @@
+package com.x9chat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves synthetic GitHub REST events and commits and GraphQL contribution calendars.
+ *
+ * Each response carries GitHub's X-RateLimit-* headers. Requests are counted per resource
+ * ("core" for REST, "graphql") against rate-limit per rate-window-s, and answered with 403
+ * once the window's budget is spent, as GitHub does. Bodies are gzipped when the client
+ * asks for it. Data is seeded by username and repository, so repeated runs see the same data.
+ */
+public final class GitHubStub extends StubServer {
+
+    private static final Pattern EVENTS = Pattern.compile("/users/([^/]+)/events");
+    private static final Pattern COMMITS = Pattern.compile("/repos/([^/]+/[^/]+)/commits");
+    private static final String[] EVENT_TYPES = {"PushEvent", "PushEvent", "PushEvent", "CreateEvent", "WatchEvent", "IssueCommentEvent"};
+
+    private final long latencyMs;
+    private final int rateLimit;
+    private final long windowSeconds;
+    private final int repositories;
+    private final ConcurrentMap<String, RateWindow> windows = new ConcurrentHashMap<>();
+
+    public GitHubStub(int port, long latencyMs, int rateLimit, long windowSeconds, int repositories) throws IOException {
+        super(port);
+        this.latencyMs = latencyMs;
+        this.rateLimit = rateLimit;
+        this.windowSeconds = windowSeconds;
+        this.repositories = repositories;
+
+        route("/users/", exchange -> rest(exchange, EVENTS, this::events));
+        route("/repos/", exchange -> rest(exchange, COMMITS, this::commits));
+        route("/graphql", this::graphql);
+        start();
+    }
+
+    static GitHubStub fromArgs(Args args) throws IOException {
+        return new GitHubStub(
+            args.getInt("github-port", 18090),
+            args.getInt("github-latency-ms", 80),
+            args.getInt("rate-limit", 5000),
+            args.getInt("rate-window-s", 3600),
+            args.getInt("repositories", 5));
+    }
+
+    public static void main(String[] args) throws IOException {
+        GitHubStub stub = fromArgs(new Args(args));
+        System.out.println("GitHub stub listening on " + stub.baseUrl());
+    }
+
+    private void rest(HttpExchange exchange, Pattern pattern, PathHandler handler) throws IOException, InterruptedException {
+        Matcher matcher = pattern.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.matches()) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        if (takeRequest(exchange, "core")) {
+            Thread.sleep(latencyMs);
+            send(exchange, handler.body(matcher.group(1), exchange));
+        }
+    }
+
+    private JsonNode events(String username, HttpExchange exchange) {
+        SplittableRandom random = new SplittableRandom(username.hashCode());
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        ArrayNode events = objectMapper.createArrayNode();
+        for (int i = 0; i < 100; i++) {
+            String repo = username + "/repo-" + random.nextInt(repositories);
+            ObjectNode event = events.addObject();
+            event.put("id", String.valueOf(40_000_000_000L + i));
+            event.put("type", EVENT_TYPES[random.nextInt(EVENT_TYPES.length)]);
+            event.putObject("actor").put("login", username).put("url", baseUrl() + "/users/" + username);
+            event.putObject("repo").put("name", repo).put("url", baseUrl() + "/repos/" + repo);
+            // Payloads dominate real event pages; this one is sized to match
+            ArrayNode commits = event.putObject("payload").put("ref", "refs/heads/main").putArray("commits");
+            for (int c = 0; c < 3; c++) {
+                commits.addObject()
+                    .put("sha", sha(random))
+                    .put("message", "Synthetic change " + c + " for load testing")
+                    .put("distinct", true);
+            }
+            event.put("public", true);
+            event.put("created_at", now.minusHours(i * 7L).withNano(0).toString());
+        }
+        return events;
+    }
+
+    private JsonNode commits(String repository, HttpExchange exchange) {
+        String query = exchange.getRequestURI().getQuery();
+        String author = queryParam(query, "author", "octocat");
+        int perPage = Integer.parseInt(queryParam(query, "per_page", "30"));
+        SplittableRandom random = new SplittableRandom(repository.hashCode());
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+
+        ArrayNode commits = objectMapper.createArrayNode();
+        for (int i = 0; i < perPage; i++) {
+            String sha = sha(random);
+            String date = now.minusHours(i * 11L).withNano(0).toString();
+            ObjectNode commit = commits.addObject();
+            commit.put("sha", sha);
+            ObjectNode details = commit.putObject("commit");
+            details.putObject("author").put("name", author).put("email", author + "@example.com").put("date", date);
+            details.putObject("committer").put("name", author).put("email", author + "@example.com").put("date", date);
+            details.put("message", "Update " + repository + " module " + random.nextInt(50) + "\n\nSynthetic commit body.");
+            details.putObject("tree").put("sha", sha(random));
+            commit.put("html_url", "https://github.com/" + repository + "/commit/" + sha);
+            commit.putObject("author").put("login", author);
+            commit.putArray("parents").addObject().put("sha", sha(random));
+        }
+        return commits;
+    }
+
+    private void graphql(HttpExchange exchange) throws IOException, InterruptedException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String username = request.path("variables").path("username").asText("octocat");
+        if (!takeRequest(exchange, "graphql")) {
+            return;
+        }
+        Thread.sleep(latencyMs);
+
+        SplittableRandom random = new SplittableRandom(username.hashCode());
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode user = response.putObject("data").putObject("user");
+        ObjectNode collection = user.putObject("contributionsCollection");
+        ObjectNode calendar = collection.putObject("contributionCalendar");
+        ArrayNode weeks = calendar.putArray("weeks");
+
+        int total = 0;
+        ArrayNode week = null;
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.withDayOfYear(1); !day.isAfter(today); day = day.plusDays(1)) {
+            int weekday = day.getDayOfWeek().getValue() % 7;
+            if (week == null || weekday == 0) {
+                week = weeks.addObject().putArray("contributionDays");
+            }
+            int count = weekday == 0 || weekday == 6 ? random.nextInt(3) : random.nextInt(10);
+            total += count;
+            week.addObject().put("contributionCount", count).put("date", day.toString()).put("weekday", weekday);
+        }
+        calendar.put("totalContributions", total);
+        collection.put("totalCommitContributions", total * 3 / 4);
+        collection.put("totalIssueContributions", total / 20);
+        collection.put("totalPullRequestContributions", total / 10);
+        collection.put("totalPullRequestReviewContributions", total / 8);
+        collection.put("restrictedContributionsCount", total / 25);
+        collection.putArray("commitContributionsByRepository");
+
+        ArrayNode nodes = user.putObject("repositories").putArray("nodes");
+        String[] languages = {"Java", "TypeScript", "Go", "Python"};
+        for (int i = 0; i < repositories; i++) {
+            ObjectNode repo = nodes.addObject();
+            repo.put("name", "repo-" + i);
+            repo.putObject("primaryLanguage").put("name", languages[i % languages.length]);
+        }
+        send(exchange, response);
+    }
+
+    /**
+     * Counts the request against its resource's window and sets the rate-limit headers.
+     * Writes the 403 itself and returns false once the window is spent.
+     */
+    private boolean takeRequest(HttpExchange exchange, String resource) throws IOException {
+        long now = System.currentTimeMillis() / 1000;
+        RateWindow window = windows.compute(resource, (key, current) ->
+            current == null || now >= current.reset() ? new RateWindow(now + windowSeconds, 1) : current.next());
+
+        int remaining = Math.max(0, rateLimit - window.used());
+        exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(rateLimit));
+        exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().set("X-RateLimit-Used", String.valueOf(Math.min(window.used(), rateLimit)));
+        exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(window.reset()));
+        exchange.getResponseHeaders().set("X-RateLimit-Resource", resource);
+
+        if (window.used() > rateLimit) {
+            respond(exchange, 403, objectMapper.createObjectNode()
+                .put("message", "API rate limit exceeded")
+                .put("documentation_url", "https://docs.github.com/rest/overview/resources-in-the-rest-api#rate-limiting"));
+            return false;
+        }
+        return true;
+    }
+
+    private void send(HttpExchange exchange, JsonNode body) throws IOException {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+            respond(exchange, 200, body);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+            objectMapper.writeValue(out, body);
+        }
+    }
+
+    private static String sha(SplittableRandom random) {
+        byte[] bytes = new byte[20];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) random.nextInt(256);
+        }
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static String queryParam(String query, String name, String defaultValue) {
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                if (pair.startsWith(name + "=")) {
+                    return pair.substring(name.length() + 1);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private record RateWindow(long reset, int used) {
+
+        RateWindow next() {
+            return new RateWindow(reset, used + 1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PathHandler {
+        JsonNode body(String match, HttpExchange exchange);
+    }
+}
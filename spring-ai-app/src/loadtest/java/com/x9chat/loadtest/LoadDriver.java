@@ -0,0 +1,348 @@
+package com.x9chat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Drives the running app at a fixed concurrency and reports latency percentiles and throughput.
+ *
+ * Scenarios:
+ *   chat   - POST /api/chat with questions from a fixed list; --questions=1 sends one question
+ *            from every worker, as when a dashboard is shared in a meeting
+ *   ingest - POST /api/reinforcements/{user}. The write returns before the app's debounced
+ *            re-embed, so the report adds indexedLatencyMs: from sending each write until the
+ *            Ollama stub embeds its marker, reindex-delay-ms included. Needs --documents set to
+ *            the app's documents path, which must hold nothing but the load-test users
+ *
+ * With --stubs the Ollama and GitHub stubs are started in this process first, and the stub-side
+ * work (chat calls, tokens, embedded inputs) is reported alongside the client-side numbers.
+ * Point the app at them with --spring.ai.ollama.base-url and --app.github.api-url.
+ */
+public final class LoadDriver {
+
+    /** Tags each ingest write so the Ollama stub can tell when it was embedded: run, then index. */
+    static final Pattern INGEST_MARKER = Pattern.compile("ingest-marker:(\\d+)/(\\d+)");
+
+    private static final List<String> QUESTIONS = List.of(
+        "How is the team feeling this week?",
+        "Who seems stressed about deadlines?",
+        "What blockers came up in recent 1:1s?",
+        "Which reinforcements are still in progress?",
+        "Summarize recent wins across the team",
+        "Is anyone showing signs of burnout?",
+        "What career growth topics were discussed lately?",
+        "How is collaboration between team members?"
+    );
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final String target;
+    private final String scenario;
+    private final int concurrency;
+    private final int requests;
+    private final int warmup;
+    private final Duration timeout;
+    private final List<String> users;
+    private final List<String> questions;
+    private final String ollamaUrl;
+
+    private LoadDriver(Args args, String ollamaUrl) throws IOException {
+        this.target = args.get("target", "http://localhost:8081");
+        this.scenario = args.get("scenario", "chat");
+        this.concurrency = args.getInt("concurrency", 4);
+        this.requests = args.getInt("requests", 100);
+        this.warmup = args.getInt("warmup", concurrency);
+        this.timeout = Duration.ofSeconds(args.getInt("timeout-s", 120));
+        this.users = List.of(args.get("users", "loadtest").split(","));
+        int distinctQuestions = args.getInt("questions", QUESTIONS.size());
+        if (distinctQuestions < 1 || distinctQuestions > QUESTIONS.size()) {
+            throw new IllegalArgumentException("--questions must be between 1 and " + QUESTIONS.size());
+        }
+        this.questions = QUESTIONS.subList(0, distinctQuestions);
+        if (!scenario.equals("chat") && !scenario.equals("ingest")) {
+            throw new IllegalArgumentException("Unknown scenario '" + scenario + "', expected chat or ingest");
+        }
+        this.ollamaUrl = ollamaUrl;
+        if (scenario.equals("ingest")) {
+            checkDocumentsPath(args.get("documents", null));
+        }
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Args options = new Args(args);
+        OllamaStub ollama = null;
+        GitHubStub gitHub = null;
+        if (options.getFlag("stubs")) {
+            ollama = OllamaStub.fromArgs(options);
+            gitHub = GitHubStub.fromArgs(options);
+            System.out.println("Ollama stub on " + ollama.baseUrl() + ", GitHub stub on " + gitHub.baseUrl());
+        }
+
+        try {
+            String ollamaUrl = ollama != null ? ollama.baseUrl() : options.get("ollama-url", "http://localhost:11435");
+            LoadDriver driver = new LoadDriver(options, ollamaUrl);
+            if (driver.warmup > 0) {
+                System.out.println("Warming up with " + driver.warmup + " requests...");
+                driver.run(driver.warmup);
+            }
+
+            long chatBefore = ollama != null ? ollama.getChatRequests() : 0;
+            long tokensBefore = ollama != null ? ollama.getTokensGenerated() : 0;
+            long embeddedBefore = ollama != null ? ollama.getEmbeddingInputs() : 0;
+
+            Result result = driver.run(driver.requests);
+            ObjectNode report = result.toJson(driver.objectMapper, driver.scenario, driver.concurrency);
+            if (ollama != null) {
+                ObjectNode stub = report.putObject("ollamaStub");
+                stub.put("chatRequests", ollama.getChatRequests() - chatBefore);
+                stub.put("tokensGenerated", ollama.getTokensGenerated() - tokensBefore);
+                stub.put("embeddedInputs", ollama.getEmbeddingInputs() - embeddedBefore);
+            }
+
+            String json = driver.objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+            System.out.println(json);
+            String out = options.get("out", null);
+            if (out != null) {
+                Files.writeString(Path.of(out), json);
+                System.out.println("Report written to " + out);
+            }
+
+            // Keep the stubs up for ingestion that the app finishes after the last response
+            if (ollama != null && options.getFlag("keep-stubs")) {
+                System.out.println("Stubs still running, press Ctrl+C to stop");
+                Thread.currentThread().join();
+            }
+        } finally {
+            if (ollama != null) {
+                ollama.close();
+            }
+            if (gitHub != null) {
+                gitHub.close();
+            }
+        }
+    }
+
+    /**
+     * Refuses to write load-test reinforcements into a documents folder that holds anyone
+     * else's notes, so a mistyped path cannot mix synthetic entries into real ones.
+     */
+    private void checkDocumentsPath(String documents) throws IOException {
+        if (documents == null) {
+            throw new IllegalArgumentException("The ingest scenario writes into the app's documents folder;"
+                + " pass the scratch folder the app was started with as --documents=<path>");
+        }
+        Path root = Path.of(documents);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        try (Stream<Path> entries = Files.list(root)) {
+            List<String> others = entries.map(entry -> entry.getFileName().toString())
+                .filter(name -> !users.contains(name))
+                .sorted()
+                .toList();
+            if (!others.isEmpty()) {
+                throw new IllegalArgumentException(root + " is not a scratch folder, it also holds " + others
+                    + "; start the app with --app.documents.path pointing at an empty folder and pass that");
+            }
+        }
+    }
+
+    private Result run(int count) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        long run = System.currentTimeMillis();
+        long[] sentAt = new long[count];
+        long[] latencies = new long[count];
+        Arrays.fill(latencies, -1);
+        Map<String, AtomicLong> failures = new ConcurrentHashMap<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?>[] futures = new Future<?>[concurrency];
+            for (int w = 0; w < concurrency; w++) {
+                futures[w] = workers.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < count) {
+                        sentAt[index] = System.currentTimeMillis();
+                        long requestStart = System.nanoTime();
+                        String failure = send(run, index);
+                        if (failure == null) {
+                            latencies[index] = System.nanoTime() - requestStart;
+                        } else {
+                            failures.computeIfAbsent(failure, key -> new AtomicLong()).incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] indexed = scenario.equals("ingest") ? awaitIndexed(run, sentAt, latencies) : null;
+        long[] successful = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        return new Result(count, successful, indexed, new TreeMap<>(failures), elapsed);
+    }
+
+    /**
+     * Polls the Ollama stub until every acknowledged write of the run has been embedded, or the
+     * request timeout passes, and returns the sorted send-to-embedded times in nanoseconds.
+     */
+    private long[] awaitIndexed(long run, long[] sentAt, long[] latencies) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(ollamaUrl + "/stub/markers?run=" + run))
+            .timeout(Duration.ofSeconds(10))
+            .GET()
+            .build();
+        long expected = Arrays.stream(latencies).filter(latency -> latency >= 0).count();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<Integer, Long> embeddedAt = new TreeMap<>();
+        while (true) {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IOException("Ollama stub at " + ollamaUrl + " answered " + response.statusCode()
+                    + " for /stub/markers; the ingest scenario needs the load-test stub as the app's Ollama");
+            }
+            embeddedAt.clear();
+            for (Iterator<Map.Entry<String, JsonNode>> fields =
+                     objectMapper.readTree(response.body()).fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                int index = Integer.parseInt(field.getKey());
+                if (index < latencies.length && latencies[index] >= 0) {
+                    embeddedAt.put(index, field.getValue().asLong());
+                }
+            }
+            if (embeddedAt.size() >= expected || System.nanoTime() > deadline) {
+                break;
+            }
+            Thread.sleep(200);
+        }
+        if (embeddedAt.size() < expected) {
+            System.out.println((expected - embeddedAt.size()) + " writes were not embedded within " + timeout.toSeconds() + "s");
+        }
+        return embeddedAt.entrySet().stream()
+            .mapToLong(entry -> Duration.ofMillis(Math.max(0, entry.getValue() - sentAt[entry.getKey()])).toNanos())
+            .sorted()
+            .toArray();
+    }
+
+    /**
+     * Sends one request and returns null on success or a short failure description.
+     */
+    private String send(long run, int index) {
+        try {
+            HttpRequest request = scenario.equals("chat") ? chatRequest(index) : ingestRequest(run, index);
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() / 100 == 2 ? null : "HTTP " + response.statusCode();
+        } catch (IOException e) {
+            return e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    private HttpRequest chatRequest(int index) throws IOException {
+        String body = objectMapper.writeValueAsString(Map.of("question", questions.get(index % questions.size())));
+        return HttpRequest.newBuilder(URI.create(target + "/api/chat"))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    private HttpRequest ingestRequest(long run, int index) throws IOException {
+        String user = users.get(index % users.size());
+        String body = objectMapper.writeValueAsString(Map.of(
+            "category", "load-test",
+            "description", "Synthetic reinforcement " + index + " about pairing and code review habits"
+                + " (ingest-marker:" + run + "/" + index + ")",
+            "priority", index % 3 == 0 ? "high" : "medium",
+            "status", "in-progress",
+            "notes", "Created by the load-test driver"
+        ));
+        return HttpRequest.newBuilder(URI.create(target + "/api/reinforcements/" + user))
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+    }
+
+    /**
+     * Latencies are sorted nanoseconds of the successful requests; indexed is null outside the
+     * ingest scenario.
+     */
+    private record Result(int requests, long[] latencies, long[] indexed, Map<String, AtomicLong> failures,
+                          long elapsedNanos) {
+
+        ObjectNode toJson(ObjectMapper objectMapper, String scenario, int concurrency) {
+            double seconds = elapsedNanos / 1e9;
+            ObjectNode report = objectMapper.createObjectNode();
+            report.put("scenario", scenario);
+            report.put("concurrency", concurrency);
+            report.put("requests", requests);
+            report.put("succeeded", latencies.length);
+            report.put("failed", requests - latencies.length);
+            report.put("elapsedSeconds", round(seconds));
+            report.put("throughputPerSecond", round(latencies.length / seconds));
+
+            putLatencies(report.putObject("latencyMs"), latencies);
+            if (indexed != null) {
+                report.put("indexed", indexed.length);
+                putLatencies(report.putObject("indexedLatencyMs"), indexed);
+            }
+
+            ObjectNode failureCounts = report.putObject("failures");
+            failures.forEach((reason, count) -> failureCounts.put(reason, count.get()));
+            return report;
+        }
+
+        private static void putLatencies(ObjectNode latency, long[] sorted) {
+            latency.put("p50", percentile(sorted, 0.50));
+            latency.put("p95", percentile(sorted, 0.95));
+            latency.put("p99", percentile(sorted, 0.99));
+            latency.put("max", sorted.length > 0 ? round(sorted[sorted.length - 1] / 1e6) : 0);
+            latency.put("mean", round(Arrays.stream(sorted).average().orElse(0) / 1e6));
+        }
+
+        // Nearest-rank percentile over sorted latencies
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+            return round(sorted[Math.max(0, Math.min(rank, sorted.length - 1))] / 1e6);
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 10) / 10.0;
+        }
+    }
+}
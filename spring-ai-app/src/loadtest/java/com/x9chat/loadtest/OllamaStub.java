@@ -0,0 +1,249 @@
+package com.x9chat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stands in for Ollama's /api/chat and /api/embed with configurable timing, so the app can be
+ * load-tested without a GPU.
+ *
+ * Chat answers wait first-token-ms, then emit response-tokens tokens at tokens-per-second,
+ * streamed as NDJSON when the request asks for it. Embeddings take embedding-ms per input and
+ * are deterministic unit vectors seeded by the text. At most "ollama-parallel" requests are
+ * worked on at once, like OLLAMA_NUM_PARALLEL; the rest queue.
+ *
+ * Embedded text is scanned for the driver's ingest markers, and GET /stub/markers?run=N
+ * returns when each marker of that run was first embedded, so the driver can time a write
+ * until the app has re-embedded it.
+ */
+public final class OllamaStub extends StubServer {
+
+    private static final String[] WORDS = {
+        "the", "team", "seems", "engaged", "with", "recent", "work", "and", "morale", "is", "steady",
+        "though", "some", "members", "mention", "deadlines", "as", "a", "source", "of", "stress"
+    };
+
+    private static final Pattern RUN_PARAM = Pattern.compile("(?:^|&)run=(\\d+)");
+
+    private final double tokensPerSecond;
+    private final long firstTokenMs;
+    private final int responseTokens;
+    private final long embeddingMs;
+    private final int dimensions;
+    private final Semaphore slots;
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong tokensGenerated = new AtomicLong();
+    private final AtomicLong embeddingInputs = new AtomicLong();
+    private final ConcurrentMap<Long, ConcurrentMap<Integer, Long>> markersEmbeddedAt = new ConcurrentHashMap<>();
+
+    public OllamaStub(int port, double tokensPerSecond, long firstTokenMs, int responseTokens,
+                      long embeddingMs, int dimensions, int parallel) throws IOException {
+        super(port);
+        this.tokensPerSecond = tokensPerSecond;
+        this.firstTokenMs = firstTokenMs;
+        this.responseTokens = responseTokens;
+        this.embeddingMs = embeddingMs;
+        this.dimensions = dimensions;
+        this.slots = new Semaphore(parallel, true);
+
+        route("/api/chat", this::chat);
+        route("/api/embed", this::embed);
+        route("/api/tags", this::tags);
+        route("/stub/markers", this::markers);
+        start();
+    }
+
+    static OllamaStub fromArgs(Args args) throws IOException {
+        return new OllamaStub(
+            args.getInt("ollama-port", 11435),
+            args.getDouble("tokens-per-second", 30),
+            args.getInt("first-token-ms", 300),
+            args.getInt("response-tokens", 150),
+            args.getInt("embedding-ms", 15),
+            args.getInt("dimensions", 768),
+            args.getInt("ollama-parallel", 2));
+    }
+
+    public static void main(String[] args) throws IOException {
+        OllamaStub stub = fromArgs(new Args(args));
+        System.out.println("Ollama stub listening on " + stub.baseUrl());
+    }
+
+    public long getChatRequests() {
+        return chatRequests.get();
+    }
+
+    public long getTokensGenerated() {
+        return tokensGenerated.get();
+    }
+
+    public long getEmbeddingInputs() {
+        return embeddingInputs.get();
+    }
+
+    private void chat(HttpExchange exchange) throws IOException, InterruptedException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        String model = request.path("model").asText("llama3.2");
+        boolean stream = request.path("stream").asBoolean(true);
+        int promptTokens = 0;
+        for (JsonNode message : request.path("messages")) {
+            promptTokens += message.path("content").asText().length() / 4;
+        }
+        chatRequests.incrementAndGet();
+
+        long start = System.nanoTime();
+        long tokenIntervalNanos = (long) (1_000_000_000L / tokensPerSecond);
+        SplittableRandom random = new SplittableRandom(promptTokens);
+
+        slots.acquire();
+        try {
+            Thread.sleep(firstTokenMs);
+            if (stream) {
+                exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    for (int i = 0; i < responseTokens; i++) {
+                        ObjectNode chunk = chatChunk(model, WORDS[random.nextInt(WORDS.length)] + " ", false);
+                        out.write(objectMapper.writeValueAsBytes(chunk));
+                        out.write('\n');
+                        out.flush();
+                        tokensGenerated.incrementAndGet();
+                        Thread.sleep(tokenIntervalNanos / 1_000_000, (int) (tokenIntervalNanos % 1_000_000));
+                    }
+                    ObjectNode done = chatChunk(model, "", true);
+                    putUsage(done, promptTokens, System.nanoTime() - start);
+                    out.write(objectMapper.writeValueAsBytes(done));
+                    out.write('\n');
+                }
+                return;
+            }
+
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < responseTokens; i++) {
+                content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            Thread.sleep(responseTokens * tokenIntervalNanos / 1_000_000);
+            tokensGenerated.addAndGet(responseTokens);
+
+            ObjectNode response = chatChunk(model, content.toString().trim(), true);
+            putUsage(response, promptTokens, System.nanoTime() - start);
+            respond(exchange, 200, response);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private ObjectNode chatChunk(String model, String content, boolean done) {
+        ObjectNode chunk = objectMapper.createObjectNode();
+        chunk.put("model", model);
+        chunk.put("created_at", Instant.now().toString());
+        chunk.putObject("message").put("role", "assistant").put("content", content);
+        chunk.put("done", done);
+        if (done) {
+            chunk.put("done_reason", "stop");
+        }
+        return chunk;
+    }
+
+    private void putUsage(ObjectNode response, int promptTokens, long totalNanos) {
+        long evalNanos = (long) (responseTokens / tokensPerSecond * 1_000_000_000L);
+        response.put("total_duration", totalNanos);
+        response.put("load_duration", 0);
+        response.put("prompt_eval_count", promptTokens);
+        response.put("prompt_eval_duration", firstTokenMs * 1_000_000L);
+        response.put("eval_count", responseTokens);
+        response.put("eval_duration", evalNanos);
+    }
+
+    private void embed(HttpExchange exchange) throws IOException, InterruptedException {
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        JsonNode input = request.path("input");
+
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("model", request.path("model").asText("nomic-embed-text"));
+        ArrayNode embeddings = response.putArray("embeddings");
+        int count = 0;
+        if (input.isArray()) {
+            for (JsonNode text : input) {
+                addEmbedding(embeddings, text.asText());
+                count++;
+            }
+        } else {
+            addEmbedding(embeddings, input.asText());
+            count = 1;
+        }
+        embeddingInputs.addAndGet(count);
+        recordMarkers(input);
+
+        slots.acquire();
+        try {
+            Thread.sleep(embeddingMs * count);
+        } finally {
+            slots.release();
+        }
+        response.put("total_duration", embeddingMs * count * 1_000_000L);
+        respond(exchange, 200, response);
+    }
+
+    private void recordMarkers(JsonNode input) {
+        long now = System.currentTimeMillis();
+        for (JsonNode text : input.isArray() ? input : objectMapper.createArrayNode().add(input)) {
+            Matcher matcher = LoadDriver.INGEST_MARKER.matcher(text.asText());
+            while (matcher.find()) {
+                markersEmbeddedAt.computeIfAbsent(Long.parseLong(matcher.group(1)), run -> new ConcurrentHashMap<>())
+                    .putIfAbsent(Integer.parseInt(matcher.group(2)), now);
+            }
+        }
+    }
+
+    private void markers(HttpExchange exchange) throws IOException {
+        String query = exchange.getRequestURI().getQuery();
+        Matcher run = query != null ? RUN_PARAM.matcher(query) : null;
+        if (run == null || !run.find()) {
+            respond(exchange, 400, objectMapper.createObjectNode().put("error", "expected ?run=<number>"));
+            return;
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        markersEmbeddedAt.getOrDefault(Long.parseLong(run.group(1)), new ConcurrentHashMap<>())
+            .forEach((index, embeddedAt) -> response.put(String.valueOf(index), embeddedAt));
+        respond(exchange, 200, response);
+    }
+
+    private void addEmbedding(ArrayNode embeddings, String text) {
+        SplittableRandom random = new SplittableRandom(text.hashCode());
+        double[] vector = new double[dimensions];
+        double sum = 0;
+        for (int i = 0; i < dimensions; i++) {
+            vector[i] = random.nextDouble(-1, 1);
+            sum += vector[i] * vector[i];
+        }
+        double norm = Math.sqrt(sum);
+        ArrayNode embedding = embeddings.addArray();
+        for (double value : vector) {
+            embedding.add((float) (value / norm));
+        }
+    }
+
+    private void tags(HttpExchange exchange) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode models = response.putArray("models");
+        models.addObject().put("name", "llama3.2:latest").put("model", "llama3.2:latest");
+        models.addObject().put("name", "llama3.2:1b").put("model", "llama3.2:1b");
+        models.addObject().put("name", "nomic-embed-text:latest").put("model", "nomic-embed-text:latest");
+        respond(exchange, 200, response);
+    }
+}
@@ -0,0 +1,75 @@
+package com.x9chat.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * JDK HttpServer with one virtual thread per request, so stubs can sleep to simulate latency
+ * without limiting concurrency.
+ */
+abstract class StubServer implements AutoCloseable {
+
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+
+    protected StubServer(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    protected void route(String path, Handler handler) {
+        server.createContext(path, exchange -> handle(exchange, handler));
+    }
+
+    protected void start() {
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    protected void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } catch (Exception e) {
+            System.err.println(getClass().getSimpleName() + " error on " + exchange.getRequestURI() + ": " + e.getMessage());
+            byte[] error = objectMapper.createObjectNode().put("error", String.valueOf(e.getMessage()))
+                .toString().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(500, error.length);
+            exchange.getResponseBody().write(error);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    @FunctionalInterface
+    protected interface Handler {
+        void handle(HttpExchange exchange) throws IOException, InterruptedException;
+    }
+}
@@ -1,16 +1,135 @@
 package com.x9chat.config;
 
+import com.x9chat.ingestion.SnapshotImporter;
+import com.x9chat.metrics.MeteredEmbeddingModel;
+import com.x9chat.service.CircuitBreaker;
+import com.x9chat.service.CoalescingEmbeddingModel;
+import com.x9chat.service.GuardedEmbeddingModel;
+import com.x9chat.metrics.RagMetrics;
+import com.x9chat.vectorstore.AbstractEmbeddingVectorStore;
+import com.x9chat.vectorstore.DenseVectorStore;
+import com.x9chat.vectorstore.EmbeddingVectorStore;
+import com.x9chat.vectorstore.QuantizedVectorStore;
+import com.x9chat.vectorstore.Quantization;
+import com.x9chat.vectorstore.ShardedVectorStore;
+import com.x9chat.vectorstore.Sharding;
+import com.x9chat.vectorstore.SimilarityKernel;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.ai.embedding.EmbeddingModel;
-import org.springframework.ai.vectorstore.SimpleVectorStore;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
 @Configuration
 public class VectorStoreConfig {
 
+    @Value("${app.vectorstore.kernel:auto}")
+    private String kernel;
+
+    @Value("${app.vectorstore.quantization:none}")
+    private String quantization;
+
+    @Value("${app.vectorstore.rescore-factor:4}")
+    private int rescoreFactor;
+
+    @Value("${app.vectorstore.vectors-file:${java.io.tmpdir}/x9chat-vectors.f32}")
+    private String vectorsFile;
+
+    @Value("${app.vectorstore.sharding:none}")
+    private String sharding;
+
+    @Value("${app.vectorstore.hash-shards:8}")
+    private int hashShards;
+
+    @Value("${app.resilience.ingestion-embedding-timeout-ms:30000}")
+    private long ingestionEmbeddingTimeoutMs;
+
+    @Value("${app.resilience.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${app.resilience.open-seconds:30}")
+    private long openSeconds;
+
+    @Value("${app.resilience.max-in-flight:64}")
+    private int maxInFlight;
+
+    @Bean(destroyMethod = "close")
+    public CircuitBreaker ingestionEmbeddingBreaker(MeterRegistry meterRegistry) {
+        CircuitBreaker breaker = new CircuitBreaker("embedding_ingestion", failureThreshold,
+                Duration.ofSeconds(openSeconds), maxInFlight);
+        breaker.bindTo(meterRegistry);
+        return breaker;
+    }
+
     @Bean
-    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
-        return new SimpleVectorStore(embeddingModel);
+    public VectorStore vectorStore(EmbeddingModel embeddingModel, RagMetrics ragMetrics, MeterRegistry meterRegistry,
+                                   SnapshotImporter snapshotImporter, CircuitBreaker ingestionEmbeddingBreaker) {
+        EmbeddingModel guardedModel = new GuardedEmbeddingModel(embeddingModel, ingestionEmbeddingBreaker,
+                Duration.ofMillis(ingestionEmbeddingTimeoutMs));
+        // Coalesce inside the meter, so each caller's query_embedding time includes any wait
+        EmbeddingModel meteredModel = new MeteredEmbeddingModel(new CoalescingEmbeddingModel(guardedModel, meterRegistry),
+                ragMetrics, meterRegistry);
+
+        SimilarityKernel similarityKernel = SimilarityKernel.select(kernel);
+        System.out.println("Using " + similarityKernel.name() + " similarity kernel");
+
+        Quantization mode = Quantization.fromProperty(quantization);
+        if (mode != Quantization.NONE) {
+            System.out.println("Using " + mode + " quantized vector store, full-precision vectors in " + vectorsFile);
+        }
+
+        Sharding shardingMode = Sharding.fromProperty(sharding);
+        EmbeddingVectorStore store;
+        if (shardingMode == Sharding.NONE) {
+            store = newStore(meteredModel, similarityKernel, mode, Paths.get(vectorsFile));
+        } else {
+            System.out.println("Sharding the vector store by " + shardingMode.name().toLowerCase()
+                    + (shardingMode == Sharding.HASH ? " into " + hashShards + " shards" : ""));
+            store = new ShardedVectorStore(meteredModel, shardingMode, hashShards,
+                    shard -> newStore(meteredModel, similarityKernel, mode, shardVectorsFile(shard)));
+        }
+        // Before anything can search it, so a replica starts with the full index
+        snapshotImporter.importInto(store);
+        return store;
+    }
+
+    private AbstractEmbeddingVectorStore newStore(EmbeddingModel embeddingModel, SimilarityKernel similarityKernel,
+                                                  Quantization mode, Path vectorsPath) {
+        if (mode == Quantization.NONE) {
+            return new DenseVectorStore(embeddingModel, similarityKernel);
+        }
+        return new QuantizedVectorStore(embeddingModel, similarityKernel, mode, vectorsPath, rescoreFactor);
+    }
+
+    // x9chat-vectors.f32 becomes x9chat-vectors-alice.f32; shard names come from user folders
+    private Path shardVectorsFile(String shard) {
+        Path base = Paths.get(vectorsFile);
+        String fileName = base.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String safeShard = encodeShardName(shard);
+        String shardFileName = dot > 0
+                ? fileName.substring(0, dot) + "-" + safeShard + fileName.substring(dot)
+                : fileName + "-" + safeShard;
+        return base.resolveSibling(shardFileName);
+    }
+
+    // Percent-encodes anything but [A-Za-z0-9._-], so different shard names never share a file
+    private static String encodeShardName(String shard) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : shard.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '_' || c == '-') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
     }
 }
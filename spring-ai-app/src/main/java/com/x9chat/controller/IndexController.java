@@ -0,0 +1,131 @@
+package com.x9chat.controller;
+
+import com.x9chat.ingestion.IngestionService;
+import com.x9chat.vectorstore.EmbeddingVectorStore;
+import com.x9chat.vectorstore.ShardedVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Inspects and maintains the vector index.
+ *
+ * With app.vectorstore.sharding set, each shard is listed with its size. A shard can be
+ * compacted into a fresh store, or rebuilt from its source files in the background, while
+ * the other shards keep serving. The whole index can be downloaded as a
+ * snapshot, which another instance loads at startup through app.snapshot.import-from.
+ * Snapshots include everyone's notes, so the download is refused unless app.snapshot.token is
+ * set and sent back as a bearer token.
+ */
+@RestController
+@RequestMapping("/api/index")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}) // Allow React dev servers
+public class IndexController {
+
+    private final VectorStore vectorStore;
+    private final IngestionService ingestionService;
+
+    @Value("${app.snapshot.token:}")
+    private String snapshotToken;
+
+    public IndexController(VectorStore vectorStore, IngestionService ingestionService) {
+        this.vectorStore = vectorStore;
+        this.ingestionService = ingestionService;
+    }
+
+    @GetMapping("/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        // Streaming bodies only suit the streaming handler, so refusals go out without a body
+        if (snapshotToken == null || snapshotToken.isBlank()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!isSnapshotToken(authorization)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).header(HttpHeaders.WWW_AUTHENTICATE, "Bearer").build();
+        }
+        if (!ingestionService.isServing()) {
+            // Nothing worth copying yet; a replica retries or starts without a snapshot
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "10").build();
+        }
+        StreamingResponseBody body = ingestionService::exportSnapshot;
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_OCTET_STREAM)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"x9chat-index-" + LocalDate.now() + ".snap\"")
+            .body(body);
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<Map<String, Object>> getShards() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (vectorStore instanceof ShardedVectorStore sharded) {
+            response.put("sharding", sharded.getSharding().name().toLowerCase());
+            response.put("documents", sharded.size());
+            response.put("shards", sharded.shardSizes());
+        } else {
+            response.put("sharding", "none");
+            if (vectorStore instanceof EmbeddingVectorStore store) {
+                response.put("documents", store.size());
+            }
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/shards/{shard}/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildShard(@PathVariable String shard) {
+        if (!(vectorStore instanceof ShardedVectorStore)) {
+            return notSharded();
+        }
+        if (!ingestionService.rebuildShard(shard)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "No shard named " + shard, "status", "error"));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+            "status", "accepted",
+            "shard", shard,
+            "message", "Re-embedding the shard's files; see /api/index/shards for its size"
+        ));
+    }
+
+    @PostMapping("/shards/{shard}/compact")
+    public ResponseEntity<Map<String, Object>> compactShard(@PathVariable String shard) {
+        if (!(vectorStore instanceof ShardedVectorStore sharded)) {
+            return notSharded();
+        }
+        long start = System.nanoTime();
+        if (!sharded.compactShard(shard)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "No shard named " + shard, "status", "error"));
+        }
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "shard", shard,
+            "documents", sharded.shardSizes().getOrDefault(shard, 0),
+            "elapsedMs", (System.nanoTime() - start) / 1_000_000
+        ));
+    }
+
+    private static ResponseEntity<Map<String, Object>> notSharded() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .body(Map.of("error", "The vector store is not sharded", "status", "error"));
+    }
+
+    private boolean isSnapshotToken(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        byte[] presented = authorization.substring("Bearer ".length()).trim().getBytes(StandardCharsets.UTF_8);
+        // Constant-time comparison, so response timing does not reveal how much of a guess was right
+        return MessageDigest.isEqual(presented, snapshotToken.trim().getBytes(StandardCharsets.UTF_8));
+    }
+}
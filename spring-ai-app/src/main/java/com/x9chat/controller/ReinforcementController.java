@@ -0,0 +1,310 @@
+package com.x9chat.controller;
+
+import com.x9chat.service.ReinforcementConflictException;
+import com.x9chat.service.ReinforcementNotFoundException;
+import com.x9chat.service.ReinforcementService;
+import com.x9chat.service.ReinforcementService.Reinforcement;
+import com.x9chat.service.ReinforcementService.UserReinforcements;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * REST access to ReinforcementService.
+ *
+ * Per-user responses carry the document revision as an ETag. Sending it back in If-Match
+ * makes a change conditional; a stale revision is answered with 409 Conflict.
+ */
+@RestController
+@RequestMapping("/api/reinforcements")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}) // Allow React dev servers
+public class ReinforcementController {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    // Usernames become directory names, so anything that could escape the documents folder is rejected
+    private static final Pattern USERNAME_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+
+    private final ReinforcementService reinforcementService;
+
+    public ReinforcementController(ReinforcementService reinforcementService) {
+        this.reinforcementService = reinforcementService;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listReinforcements(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String priority,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) throws IOException {
+
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        List<String> users = reinforcementService.getAllUsers().stream()
+            .filter(user -> username == null || username.equals(user))
+            .toList();
+        String query = q != null ? q.toLowerCase() : null;
+
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (String user : users) {
+            if (!isValidUsername(user)) {
+                continue;
+            }
+            for (Reinforcement reinforcement : reinforcementService.getUserReinforcements(user).getReinforcements()) {
+                if (matches(category, reinforcement.getCategory())
+                        && matches(status, reinforcement.getStatus())
+                        && matches(priority, reinforcement.getPriority())
+                        && (query == null || containsText(reinforcement, query))) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("username", user);
+                    item.put("reinforcement", reinforcement);
+                    matches.add(item);
+                }
+            }
+        }
+
+        int from = (int) Math.min((long) page * size, matches.size());
+        int to = Math.min(from + size, matches.size());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("items", matches.subList(from, to));
+        response.put("page", page);
+        response.put("size", size);
+        response.put("totalItems", matches.size());
+        response.put("totalPages", (matches.size() + size - 1) / size);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{username}")
+    public ResponseEntity<?> getUserReinforcements(@PathVariable String username) throws IOException {
+        if (!isValidUsername(username)) {
+            return invalidUsername(username);
+        }
+        if (!reinforcementService.hasReinforcements(username)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "No reinforcements for user: " + username, "status", "error"));
+        }
+        return withRevision(reinforcementService.getUserReinforcements(username));
+    }
+
+    @GetMapping("/{username}/{id}")
+    public ResponseEntity<?> getReinforcement(@PathVariable String username, @PathVariable int id) throws IOException {
+        if (!isValidUsername(username)) {
+            return invalidUsername(username);
+        }
+        return reinforcementService.getReinforcement(username, id)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> notFound(username, id));
+    }
+
+    @PostMapping("/{username}")
+    public ResponseEntity<?> addReinforcement(@PathVariable String username,
+                                              @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                              @RequestBody Reinforcement reinforcement) throws IOException {
+        if (!isValidUsername(username)) {
+            return invalidUsername(username);
+        }
+        return withRevision(reinforcementService.addReinforcement(username, reinforcement, parseRevision(ifMatch)));
+    }
+
+    @PutMapping("/{username}/{id}")
+    public ResponseEntity<?> updateReinforcement(@PathVariable String username, @PathVariable int id,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch,
+                                                 @RequestBody Reinforcement reinforcement) throws IOException {
+        if (!isValidUsername(username)) {
+            return invalidUsername(username);
+        }
+        return withRevision(reinforcementService.updateReinforcement(username, id, reinforcement, parseRevision(ifMatch)));
+    }
+
+    @DeleteMapping("/{username}/{id}")
+    public ResponseEntity<?> deleteReinforcement(@PathVariable String username, @PathVariable int id,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) throws IOException {
+        if (!isValidUsername(username)) {
+            return invalidUsername(username);
+        }
+        return withRevision(reinforcementService.deleteReinforcement(username, id, parseRevision(ifMatch)));
+    }
+
+    /**
+     * Applies upserts and deletes for any number of users. The whole request is validated before
+     * anything is written. Each user's changes are then applied and persisted as one unit, and the
+     * response reports the outcome per user: a stale expected revision or a storage error rejects
+     * that user's changes only, while the users before it keep theirs.
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulk(@RequestBody BulkRequest request) {
+        List<String> errors = new ArrayList<>();
+        List<BulkUpsert> upserts = request.upserts() != null ? request.upserts() : List.of();
+        List<BulkDelete> deletes = request.deletes() != null ? request.deletes() : List.of();
+        for (int i = 0; i < upserts.size(); i++) {
+            BulkUpsert upsert = upserts.get(i);
+            if (upsert == null) {
+                errors.add("upserts[" + i + "] is missing");
+            } else if (!isValidUsername(upsert.username())) {
+                errors.add("upserts[" + i + "]: invalid username: " + upsert.username());
+            } else if (upsert.reinforcement() == null) {
+                errors.add("upserts[" + i + "]: reinforcement is missing");
+            }
+        }
+        for (int i = 0; i < deletes.size(); i++) {
+            BulkDelete delete = deletes.get(i);
+            if (delete == null) {
+                errors.add("deletes[" + i + "] is missing");
+            } else if (!isValidUsername(delete.username())) {
+                errors.add("deletes[" + i + "]: invalid username: " + delete.username());
+            } else if (delete.id() == null) {
+                errors.add("deletes[" + i + "]: id is missing");
+            }
+        }
+        if (!errors.isEmpty()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Invalid bulk request", "errors", errors, "status", "error"));
+        }
+
+        Map<String, List<Reinforcement>> upsertsByUser = new LinkedHashMap<>();
+        Map<String, List<Integer>> deletesByUser = new LinkedHashMap<>();
+        for (BulkUpsert upsert : upserts) {
+            upsertsByUser.computeIfAbsent(upsert.username(), user -> new ArrayList<>()).add(upsert.reinforcement());
+            deletesByUser.computeIfAbsent(upsert.username(), user -> new ArrayList<>());
+        }
+        for (BulkDelete delete : deletes) {
+            deletesByUser.computeIfAbsent(delete.username(), user -> new ArrayList<>()).add(delete.id());
+            upsertsByUser.computeIfAbsent(delete.username(), user -> new ArrayList<>());
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        int applied = 0;
+        for (String username : upsertsByUser.keySet()) {
+            Long expectedRevision = request.expectedRevisions() != null ? request.expectedRevisions().get(username) : null;
+            Map<String, Object> result = new LinkedHashMap<>();
+            try {
+                UserReinforcements updated = reinforcementService.applyBulk(
+                    username, upsertsByUser.get(username), deletesByUser.get(username), expectedRevision);
+                result.put("status", "success");
+                result.put("revision", updated.getRevision());
+                result.put("count", updated.getReinforcements().size());
+                applied++;
+            } catch (ReinforcementConflictException e) {
+                result.put("status", "conflict");
+                result.put("error", e.getMessage());
+                result.put("currentRevision", e.getCurrentRevision());
+            } catch (IOException e) {
+                System.err.println("Bulk change for " + username + " failed: " + e.getMessage());
+                result.put("status", "error");
+                result.put("error", "Error accessing reinforcements: " + e.getMessage());
+            }
+            results.put(username, result);
+        }
+
+        boolean allApplied = applied == results.size();
+        String status = allApplied ? "success" : applied > 0 ? "partial" : "failed";
+        return ResponseEntity.status(allApplied ? HttpStatus.OK : HttpStatus.MULTI_STATUS)
+            .body(Map.of("status", status, "results", results));
+    }
+
+    @ExceptionHandler(ReinforcementConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(ReinforcementConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .eTag(etag(e.getCurrentRevision()))
+            .body(Map.of(
+                "error", e.getMessage(),
+                "currentRevision", e.getCurrentRevision(),
+                "status", "error"
+            ));
+    }
+
+    @ExceptionHandler(ReinforcementNotFoundException.class)
+    public ResponseEntity<?> handleNotFound(ReinforcementNotFoundException e) {
+        return notFound(e.getUsername(), e.getReinforcementId());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest()
+            .body(Map.of("error", e.getMessage(), "status", "error"));
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<Map<String, Object>> handleIOException(IOException e) {
+        return ResponseEntity.internalServerError()
+            .body(Map.of(
+                "error", "Error accessing reinforcements: " + e.getMessage(),
+                "status", "error"
+            ));
+    }
+
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.equalsIgnoreCase(value);
+    }
+
+    private static boolean containsText(Reinforcement reinforcement, String query) {
+        return contains(reinforcement.getCategory(), query)
+            || contains(reinforcement.getDescription(), query)
+            || contains(reinforcement.getNotes(), query);
+    }
+
+    private static boolean contains(String text, String query) {
+        return text != null && text.toLowerCase().contains(query);
+    }
+
+    private static boolean isValidUsername(String username) {
+        return username != null && USERNAME_PATTERN.matcher(username).matches();
+    }
+
+    private static Long parseRevision(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        try {
+            return Long.parseLong(value.replace("\"", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must contain a revision number, got: " + ifMatch);
+        }
+    }
+
+    private static String etag(long revision) {
+        return "\"" + revision + "\"";
+    }
+
+    private static ResponseEntity<?> withRevision(UserReinforcements reinforcements) {
+        return ResponseEntity.ok().eTag(etag(reinforcements.getRevision())).body(reinforcements);
+    }
+
+    private static ResponseEntity<?> invalidUsername(String username) {
+        return ResponseEntity.badRequest()
+            .body(Map.of("error", "Invalid username: " + username, "status", "error"));
+    }
+
+    private static ResponseEntity<?> notFound(String username, int id) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+            .body(Map.of("error", "Reinforcement " + id + " not found for user: " + username, "status", "error"));
+    }
+
+    // Request bodies for the bulk endpoint
+
+    public record BulkRequest(List<BulkUpsert> upserts, List<BulkDelete> deletes, Map<String, Long> expectedRevisions) {
+    }
+
+    public record BulkUpsert(String username, Reinforcement reinforcement) {
+    }
+
+    public record BulkDelete(String username, Integer id) {
+    }
+}
@@ -1,11 +1,16 @@
 package com.x9chat.controller;
 
+import com.x9chat.ingestion.IngestionService;
+import com.x9chat.ingestion.WarmingUpException;
 import com.x9chat.service.X9ChatService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -13,10 +18,15 @@ import java.util.Map;
 @CrossOrigin(origins = {"http://localhost:3000", "http://localhost:5173"}) // Allow React dev servers
 public class X9ChatController {
 
+    // Seconds a client is asked to wait before retrying while the index warms up
+    private static final String WARM_UP_RETRY_AFTER = "5";
+
     private final X9ChatService x9ChatService;
+    private final IngestionService ingestionService;
 
-    public X9ChatController(X9ChatService x9ChatService) {
+    public X9ChatController(X9ChatService x9ChatService, IngestionService ingestionService) {
         this.x9ChatService = x9ChatService;
+        this.ingestionService = ingestionService;
     }
 
     @GetMapping("/")
@@ -36,11 +46,23 @@ public class X9ChatController {
                     .body(Map.of("error", "Question cannot be empty"));
             }
             
-            String response = x9ChatService.askQuestion(question);
-            return ResponseEntity.ok(Map.of(
-                "response", response,
-                "status", "success"
-            ));
+            X9ChatService.Answer answer = x9ChatService.askQuestion(question);
+            Map<String, String> body = new LinkedHashMap<>();
+            body.put("response", answer.getText());
+            // Degraded answers are note excerpts, sent because the model was slow or down
+            body.put("status", answer.isDegraded() ? "degraded" : "success");
+            body.put("route", answer.getRoute().name().toLowerCase());
+            if (answer.getModel() != null) {
+                body.put("model", answer.getModel());
+            }
+            return ResponseEntity.ok(body);
+        } catch (WarmingUpException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, WARM_UP_RETRY_AFTER)
+                .body(Map.of(
+                    "error", e.getMessage(),
+                    "status", "warming_up"
+                ));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
                 .body(Map.of(
@@ -62,15 +84,22 @@ public class X9ChatController {
         return ResponseEntity.ok(x9ChatService.getStats());
     }
     
+    @GetMapping("/api/status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(ingestionService.getStatus().toMap());
+    }
+
     @PostMapping("/api/refresh")
     @ResponseBody
     public ResponseEntity<Map<String, String>> refreshData() {
         try {
-            // This would trigger a refresh of the document store
-            // For now, just return a success message
+            // Only new, changed and deleted files are re-embedded
+            boolean queued = ingestionService.refresh();
             return ResponseEntity.ok(Map.of(
                 "status", "success",
-                "message", "Data refresh initiated. This may take a few minutes."
+                "message", queued ? "Data refresh initiated. This may take a few minutes."
+                                  : "A data refresh is already pending."
             ));
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -86,7 +115,9 @@ public class X9ChatController {
     @ResponseBody
     public String askQuestion(@RequestParam String question) {
         try {
-            return x9ChatService.askQuestion(question);
+            return x9ChatService.askQuestion(question).getText();
+        } catch (WarmingUpException e) {
+            return e.getMessage();
         } catch (Exception e) {
             return "Error processing your question: " + e.getMessage();
         }
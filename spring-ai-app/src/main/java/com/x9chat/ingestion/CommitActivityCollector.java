@@ -0,0 +1,169 @@
+package com.x9chat.ingestion;
+
+import com.x9chat.service.GitHubService;
+import com.x9chat.service.GitHubService.CommitData;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Turns each team member's recent GitHub commits into one activity document per user,
+ * repository and day, so the chat can answer questions about engineering work.
+ *
+ * Commits are deduplicated by SHA, which drops the copies GitHub lists again for forks.
+ * Messages that are near-duplicates of one already kept for the same user (cherry-picks,
+ * merge commits, a run of "fix typo") are left out before anything is embedded; a day whose
+ * messages are all duplicates gets no document. Commits are handled oldest first, so the
+ * first occurrence in the window is kept and new commits never change older documents.
+ * The filter is rebuilt over the sliding window on every pass, though, so once the kept copy
+ * falls out of the window a later duplicate takes its place, and that day's document changes
+ * and is embedded again.
+ */
+@Component
+public class CommitActivityCollector {
+
+    static final String PATH_PREFIX = "github:";
+
+    // Trailers and merge boilerplate that make otherwise different messages look alike
+    private static final Pattern NOISE = Pattern.compile("(?im)^(signed-off-by|co-authored-by|change-id):.*$"
+            + "|\\(cherry picked from commit [0-9a-f]+\\)|^merge (pull request #\\d+ from \\S+|branch '[^']*'( of \\S+)?( into \\S+)?)");
+    private static final int MAX_MESSAGE_CHARS = 300;
+
+    @Value("${app.commits.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.commits.days:30}")
+    private int days;
+
+    @Value("${app.commits.similarity-threshold:0.8}")
+    private double similarityThreshold;
+
+    private final GitHubService gitHubService;
+
+    public CommitActivityCollector(GitHubService gitHubService) {
+        this.gitHubService = gitHubService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    static boolean isActivityPath(String path) {
+        return path.startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * Fetches and groups the users' commits, keyed by a github:user/owner/repo/day path.
+     * The oldest day in the window is skipped, since it is only partly covered.
+     */
+    Map<String, Document> collect(Collection<String> usernames) {
+        Map<String, Document> documents = new LinkedHashMap<>();
+        LocalDate firstDay = LocalDate.now(ZoneOffset.UTC).minusDays(days - 1L);
+        for (String username : usernames) {
+            List<CommitData> commits = new ArrayList<>(gitHubService.fetchRecentCommits(username, days));
+            commits.sort(Comparator.comparing(CommitData::getDate).thenComparing(CommitData::getRepository)
+                    .thenComparing(CommitData::getSha));
+
+            Set<String> seenShas = new HashSet<>();
+            NearDuplicateFilter filter = new NearDuplicateFilter(similarityThreshold);
+            Map<String, Activity> groups = new TreeMap<>();
+            int duplicates = 0;
+            int nearDuplicates = 0;
+            for (CommitData commit : commits) {
+                LocalDate day = LocalDate.parse(commit.getDate().substring(0, 10));
+                if (day.isBefore(firstDay)) {
+                    continue;
+                }
+                if (!seenShas.add(commit.getSha())) {
+                    duplicates++;
+                    continue;
+                }
+                Activity activity = groups.computeIfAbsent(commit.getRepository() + "/" + day,
+                        key -> new Activity(commit.getRepository(), day));
+                activity.commits++;
+                String message = normalize(commit.getMessage());
+                if (message.isEmpty() || !filter.add(message)) {
+                    nearDuplicates++;
+                    continue;
+                }
+                activity.messages.add(commit);
+            }
+
+            int kept = 0;
+            for (Activity activity : groups.values()) {
+                if (!activity.messages.isEmpty()) {
+                    String path = PATH_PREFIX + username + "/" + activity.repository + "/" + activity.day;
+                    documents.put(path, activity.toDocument(username, path));
+                    kept += activity.messages.size();
+                }
+            }
+            if (!commits.isEmpty()) {
+                System.out.println("Collected " + commits.size() + " commits for " + username + ": " + kept + " kept in "
+                        + groups.size() + " repository days, " + duplicates + " duplicate SHAs, "
+                        + nearDuplicates + " near-duplicate messages");
+            }
+        }
+        return documents;
+    }
+
+    static String normalize(String message) {
+        String text = NOISE.matcher(message).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    private static final class Activity {
+        private final String repository;
+        private final LocalDate day;
+        private final List<CommitData> messages = new ArrayList<>();
+        private int commits;
+
+        Activity(String repository, LocalDate day) {
+            this.repository = repository;
+            this.day = day;
+        }
+
+        Document toDocument(String username, String path) {
+            StringBuilder content = new StringBuilder()
+                    .append("GitHub activity of ").append(username).append(" in ").append(repository)
+                    .append(" on ").append(day).append(": ").append(commits)
+                    .append(commits == 1 ? " commit" : " commits").append("\n");
+            for (CommitData commit : messages) {
+                String message = commit.getMessage().strip();
+                if (message.length() > MAX_MESSAGE_CHARS) {
+                    message = message.substring(0, MAX_MESSAGE_CHARS) + "...";
+                }
+                content.append("- ").append(message.replace("\n", "\n  "))
+                        .append(" (").append(commit.getSha(), 0, Math.min(8, commit.getSha().length())).append(")\n");
+            }
+            int omitted = commits - messages.size();
+            if (omitted > 0) {
+                content.append(omitted).append(omitted == 1 ? " similar message" : " similar messages").append(" omitted\n");
+            }
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", "github");
+            metadata.put("username", username);
+            metadata.put("type", "commit-activity");
+            metadata.put("repository", repository);
+            metadata.put("date", day.toString());
+            metadata.put("commits", commits);
+            metadata.put("filepath", path);
+            return new Document(content.toString(), metadata);
+        }
+    }
+}
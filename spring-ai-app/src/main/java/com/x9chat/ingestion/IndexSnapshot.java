@@ -0,0 +1,225 @@
+package com.x9chat.ingestion;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.x9chat.ingestion.IngestionCheckpoint.Chunk;
+import com.x9chat.ingestion.IngestionCheckpoint.FileEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A copy of the whole index, written by one instance and loaded by others so that only one
+ * node pays for embedding the team documents.
+ *
+ * The format is one sequential stream: a header (magic, format version, embedding model,
+ * dimensions, creation time, file and chunk counts), then every file of the ingestion manifest
+ * with its content hash and its chunks (id, text, metadata as JSON, raw float32 vector), then
+ * a SHA-256 of everything before it. Paths inside the documents folder are stored relative to
+ * it so a replica can keep its copy elsewhere; others, like github: activity paths, as they are.
+ * Version 2 added the flag that tells the two apart.
+ */
+public final class IndexSnapshot {
+
+    static final int MAGIC = 0x58394958; // "X9IX"
+    static final int VERSION = 2;
+
+    private static final int DIGEST_BYTES = 32;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> METADATA = new TypeReference<>() { };
+
+    private final String model;
+    private final int dimensions;
+    private final Instant createdAt;
+    private final List<FileEntry> files;
+    private final Set<String> relativePaths;
+
+    private IndexSnapshot(String model, int dimensions, Instant createdAt, List<FileEntry> files, Set<String> relativePaths) {
+        this.model = model;
+        this.dimensions = dimensions;
+        this.createdAt = createdAt;
+        this.files = files;
+        this.relativePaths = relativePaths;
+    }
+
+    /**
+     * Writes the files, with paths made relative to documentsRoot. Files whose chunks have no
+     * stored embedding are left out; a replica embeds those itself.
+     */
+    static void write(OutputStream target, String model, Path documentsRoot, Collection<FileEntry> entries) throws IOException {
+        List<FileEntry> files = entries.stream().filter(IndexSnapshot::hasEmbeddings).toList();
+        int dimensions = files.stream().flatMap(file -> file.chunks().stream())
+            .findFirst().map(chunk -> chunk.embedding().length).orElse(0);
+        int chunkCount = files.stream().mapToInt(file -> file.chunks().size()).sum();
+        Path root = documentsRoot.toAbsolutePath().normalize();
+
+        BufferedOutputStream buffered = new BufferedOutputStream(target, 1 << 16);
+        MessageDigest digest = sha256();
+        DataOutputStream out = new DataOutputStream(new DigestOutputStream(buffered, digest));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, model);
+        out.writeInt(dimensions);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(files.size());
+        out.writeInt(chunkCount);
+
+        ByteBuffer vector = ByteBuffer.allocate(dimensions * Float.BYTES);
+        for (FileEntry file : files) {
+            Path path = CommitActivityCollector.isActivityPath(file.path()) ? null : Path.of(file.path()).toAbsolutePath().normalize();
+            boolean relative = path != null && path.startsWith(root);
+            out.writeBoolean(relative);
+            writeString(out, relative ? root.relativize(path).toString() : file.path());
+            writeString(out, file.hash());
+            out.writeInt(file.chunks().size());
+            for (Chunk chunk : file.chunks()) {
+                if (chunk.embedding().length != dimensions) {
+                    throw new IOException("Chunk " + chunk.id() + " has " + chunk.embedding().length
+                        + " dimensions, expected " + dimensions);
+                }
+                writeString(out, chunk.id());
+                writeString(out, chunk.content());
+                writeString(out, OBJECT_MAPPER.writeValueAsString(chunk.metadata()));
+                vector.clear();
+                vector.asFloatBuffer().put(chunk.embedding());
+                out.write(vector.array());
+            }
+        }
+        out.flush();
+        // The checksum itself goes around the digest stream
+        buffered.write(digest.digest());
+        buffered.flush();
+    }
+
+    /**
+     * Reads a whole snapshot and checks its checksum before anything is returned.
+     */
+    static IndexSnapshot read(InputStream source) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(source, 1 << 16);
+        MessageDigest digest = sha256();
+        DataInputStream in = new DataInputStream(new DigestInputStream(buffered, digest));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an index snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected " + VERSION);
+        }
+        String model = readString(in);
+        int dimensions = in.readInt();
+        Instant createdAt = Instant.ofEpochMilli(in.readLong());
+        int fileCount = in.readInt();
+        in.readInt(); // chunk count, for tools that only read the header
+
+        List<FileEntry> files = new ArrayList<>(fileCount);
+        Set<String> relativePaths = new HashSet<>();
+        byte[] vectorBytes = new byte[dimensions * Float.BYTES];
+        for (int f = 0; f < fileCount; f++) {
+            boolean relative = in.readBoolean();
+            String path = readString(in);
+            String hash = readString(in);
+            int chunkCount = in.readInt();
+            List<Chunk> chunks = new ArrayList<>(chunkCount);
+            for (int c = 0; c < chunkCount; c++) {
+                String id = readString(in);
+                String content = readString(in);
+                Map<String, Object> metadata = OBJECT_MAPPER.readValue(readString(in), METADATA);
+                in.readFully(vectorBytes);
+                float[] embedding = new float[dimensions];
+                ByteBuffer.wrap(vectorBytes).asFloatBuffer().get(embedding);
+                chunks.add(new Chunk(id, content, metadata, embedding));
+            }
+            files.add(new FileEntry(path, hash, chunks));
+            if (relative) {
+                relativePaths.add(path);
+            }
+        }
+
+        byte[] expected = digest.digest();
+        byte[] actual = buffered.readNBytes(DIGEST_BYTES);
+        if (!Arrays.equals(expected, actual)) {
+            throw new IOException("Snapshot checksum does not match; the file is truncated or corrupt");
+        }
+        return new IndexSnapshot(model, dimensions, createdAt, files, relativePaths);
+    }
+
+    public String getModel() { return model; }
+    public int getDimensions() { return dimensions; }
+    public Instant getCreatedAt() { return createdAt; }
+    public int getFileCount() { return files.size(); }
+
+    public int getChunkCount() {
+        return files.stream().mapToInt(file -> file.chunks().size()).sum();
+    }
+
+    /**
+     * The manifest with paths resolved against this instance's documents folder.
+     */
+    List<FileEntry> files(Path documentsRoot) {
+        List<FileEntry> resolved = new ArrayList<>(files.size());
+        for (FileEntry file : files) {
+            if (!relativePaths.contains(file.path())) {
+                resolved.add(file);
+                continue;
+            }
+            String path = documentsRoot.resolve(file.path()).toString();
+            List<Chunk> chunks = new ArrayList<>(file.chunks().size());
+            for (Chunk chunk : file.chunks()) {
+                Map<String, Object> metadata = new HashMap<>(chunk.metadata());
+                if (metadata.containsKey("filepath")) {
+                    metadata.put("filepath", path);
+                }
+                chunks.add(new Chunk(chunk.id(), chunk.content(), metadata, chunk.embedding()));
+            }
+            resolved.add(new FileEntry(path, file.hash(), chunks));
+        }
+        return resolved;
+    }
+
+    private static boolean hasEmbeddings(FileEntry file) {
+        return file.chunks().stream().allMatch(chunk -> chunk.embedding() != null);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt snapshot: negative string length");
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.x9chat.ingestion;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only record of the chunks and embeddings produced for each ingested file.
+ *
+ * A line is written as soon as a file has been embedded, so a restart reloads everything
+ * finished so far without calling Ollama and only embeds what is new, changed or was cut
+ * off. The last line for a path wins. The first line names the embedding model; a
+ * checkpoint written with another model is discarded. A torn final line is cut off.
+ * close() may be called at any time; the file is reopened by the next write.
+ */
+class IngestionCheckpoint implements Closeable {
+
+    private final Path file;
+    private final String model;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FileChannel channel;
+    private int lineCount;
+
+    IngestionCheckpoint(Path file, String model) {
+        this.file = file;
+        this.model = model;
+    }
+
+    /**
+     * Reads the latest entry for every file still present in the checkpoint.
+     */
+    synchronized Map<String, FileEntry> restore() throws IOException {
+        Map<String, FileEntry> files = new LinkedHashMap<>();
+        lineCount = 0;
+        if (!Files.exists(file)) {
+            return files;
+        }
+
+        truncateTornLine();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry;
+                try {
+                    entry = objectMapper.readValue(line, Entry.class);
+                } catch (IOException e) {
+                    System.err.println("Skipping unreadable checkpoint entry in " + file + ": " + e.getMessage());
+                    continue;
+                }
+                lineCount++;
+                switch (entry.op()) {
+                    case HEADER -> {
+                        if (!model.equals(entry.model())) {
+                            System.out.println("Ingestion checkpoint was written with model " + entry.model()
+                                    + ", re-embedding everything with " + model);
+                            files.clear();
+                            lineCount = 0;
+                            return files;
+                        }
+                    }
+                    case FILE -> files.put(entry.path(), new FileEntry(entry.path(), entry.hash(), entry.chunks()));
+                    case REMOVE -> files.remove(entry.path());
+                }
+            }
+        }
+        return files;
+    }
+
+    synchronized void append(FileEntry entry) throws IOException {
+        write(new Entry(Operation.FILE, entry.path(), entry.hash(), entry.chunks(), null));
+    }
+
+    synchronized void remove(String path) throws IOException {
+        write(new Entry(Operation.REMOVE, path, null, null, null));
+    }
+
+    /**
+     * True when superseded lines make up most of the file.
+     */
+    synchronized boolean needsCompaction(int liveFiles) {
+        return lineCount > 2 * (liveFiles + 1);
+    }
+
+    /**
+     * Rewrites the checkpoint with one line per live file, replacing the old file atomically.
+     */
+    synchronized void compact(Collection<FileEntry> files) throws IOException {
+        close();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(objectMapper.writeValueAsString(header()));
+            writer.newLine();
+            for (FileEntry entry : files) {
+                writer.write(objectMapper.writeValueAsString(new Entry(Operation.FILE, entry.path(), entry.hash(), entry.chunks(), null)));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lineCount = files.size() + 1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        FileChannel channel = channel();
+        if (lineCount == 0) {
+            // Nothing usable on disk, so start over with a header for the current model
+            channel.truncate(0);
+            writeLine(channel, header());
+        }
+        writeLine(channel, entry);
+        channel.force(false);
+    }
+
+    private void writeLine(FileChannel channel, Entry entry) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lineCount++;
+    }
+
+    private Entry header() {
+        return new Entry(Operation.HEADER, null, null, null, model);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    // A crash mid-append can leave a final line without its newline. It is cut off, or the next
+    // append would be glued onto the fragment and lost with it on the following restore.
+    private void truncateTornLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            scan:
+            while (end > 0) {
+                int length = (int) Math.min(buffer.capacity(), end);
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    channel.read(buffer, end - length + buffer.position());
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        end = end - length + i + 1;
+                        break scan;
+                    }
+                }
+                end -= length;
+            }
+            if (end < size) {
+                System.err.println("Dropping torn final line (" + (size - end) + " bytes) of " + file);
+                channel.truncate(end);
+                channel.force(false);
+            }
+        }
+    }
+
+    enum Operation { HEADER, FILE, REMOVE }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(Operation op, String path, String hash, List<Chunk> chunks, String model) {
+    }
+
+    record Chunk(String id, String content, Map<String, Object> metadata, float[] embedding) {
+
+        static Chunk of(Document document, float[] embedding) {
+            return new Chunk(document.getId(), document.getText(), document.getMetadata(), embedding);
+        }
+
+        Document toDocument() {
+            return new Document(id, content, metadata);
+        }
+    }
+
+    record FileEntry(String path, String hash, List<Chunk> chunks) {
+
+        List<Document> documents() {
+            List<Document> documents = new ArrayList<>(chunks.size());
+            for (Chunk chunk : chunks) {
+                documents.add(chunk.toDocument());
+            }
+            return documents;
+        }
+
+        List<float[]> embeddings() {
+            return chunks.stream().map(Chunk::embedding).toList();
+        }
+
+        List<String> ids() {
+            return chunks.stream().map(Chunk::id).toList();
+        }
+    }
+}
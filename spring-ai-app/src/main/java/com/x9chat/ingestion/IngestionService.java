@@ -0,0 +1,609 @@
+package com.x9chat.ingestion;
+
+import com.x9chat.ingestion.IngestionCheckpoint.Chunk;
+import com.x9chat.ingestion.IngestionCheckpoint.FileEntry;
+import com.x9chat.metrics.IndexStatistics;
+import com.x9chat.service.ReinforcementIndexer;
+import com.x9chat.vectorstore.EmbeddingVectorStore;
+import com.x9chat.vectorstore.ShardedVectorStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the team documents into the vector store in the background once the app is up.
+ *
+ * Chunks and embeddings from earlier runs are restored from the ingestion checkpoint first,
+ * so questions can be answered within seconds of startup. Files are then compared with the
+ * checkpoint by content hash: unchanged files are skipped, new and changed files are split
+ * and embedded, and chunks of deleted files are dropped. Every embedded file is checkpointed
+ * straight away, so an interrupted pass resumes with the files it had not reached.
+ * A file that fails to embed is logged and retried by the next pass.
+ * With app.commits.enabled, each pass also embeds the team's GitHub commits as activity
+ * documents (see CommitActivityCollector), compared by content hash in the same way.
+ * When an index snapshot was imported at startup, its manifest takes the place of the
+ * checkpoint and the current index can be exported as a snapshot for other instances.
+ * With a sharded store, a single shard can be rebuilt from its source files.
+ */
+@Service
+public class IngestionService implements SmartLifecycle {
+
+    // Pattern to extract date from filename (YYYY-MM-DD format)
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+    private static final String REINFORCEMENTS_FILE = "reinforcements.json";
+
+    public enum Phase { STARTING, RESTORING, INGESTING, READY, FAILED }
+
+    @Value("${app.documents.path:../public}")
+    private String documentsPath;
+
+    @Value("${app.ingestion.checkpoint-file:${java.io.tmpdir}/x9chat-ingestion.jsonl}")
+    private String checkpointFile;
+
+    @Value("${spring.ai.ollama.embedding.options.model:nomic-embed-text}")
+    private String embeddingModelName;
+
+    private final VectorStore vectorStore;
+    private final ReinforcementIndexer reinforcementIndexer;
+    private final StructureAwareSplitter splitter;
+    private final IndexStatistics indexStatistics;
+    private final SnapshotImporter snapshotImporter;
+    private final CommitActivityCollector commitActivity;
+
+    // Written by the ingestion thread, read by snapshot exports
+    private final Map<String, FileEntry> indexedFiles = new ConcurrentHashMap<>();
+    private IngestionCheckpoint checkpoint;
+
+    private final AtomicBoolean passQueued = new AtomicBoolean();
+    private final AtomicInteger filesTotal = new AtomicInteger();
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final AtomicInteger filesFailed = new AtomicInteger();
+    private volatile Phase phase = Phase.STARTING;
+    private volatile int restoredChunks;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String lastError;
+    private volatile boolean running;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "document-ingestion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public IngestionService(VectorStore vectorStore, ReinforcementIndexer reinforcementIndexer,
+                            StructureAwareSplitter splitter, IndexStatistics indexStatistics,
+                            SnapshotImporter snapshotImporter, CommitActivityCollector commitActivity) {
+        this.vectorStore = vectorStore;
+        this.reinforcementIndexer = reinforcementIndexer;
+        this.splitter = splitter;
+        this.indexStatistics = indexStatistics;
+        this.snapshotImporter = snapshotImporter;
+        this.commitActivity = commitActivity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        checkpoint = new IngestionCheckpoint(Paths.get(checkpointFile), embeddingModelName);
+        passQueued.set(true);
+        executor.execute(() -> {
+            restore();
+            ingest();
+        });
+    }
+
+    /**
+     * Rescans the documents folder when restarted after a stop, e.g. on CRaC restore, since notes
+     * may have changed since the checkpoint. At startup the first pass is queued by onApplicationReady.
+     */
+    @Override
+    public void start() {
+        running = true;
+        refresh();
+    }
+
+    /**
+     * Closes the checkpoint file, e.g. before a CRaC checkpoint. The next write reopens it.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        closeCheckpoint();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Queues another pass over the documents folder. Returns false if one is already waiting.
+     */
+    public boolean refresh() {
+        if (checkpoint == null || executor.isShutdown() || !passQueued.compareAndSet(false, true)) {
+            return false;
+        }
+        executor.execute(this::ingest);
+        return true;
+    }
+
+    /**
+     * True once questions can be answered: the first pass has finished, or some chunks are
+     * already searchable because they were restored or embedded early in the pass. A pass that
+     * failed before anything was indexed leaves the service unavailable until a refresh succeeds.
+     */
+    public boolean isServing() {
+        return phase == Phase.READY || indexStatistics.getTotalChunks() > 0;
+    }
+
+    public Status getStatus() {
+        return new Status(phase, isServing(), filesTotal.get(), filesDone.get(), filesFailed.get(),
+                restoredChunks, startedAt, completedAt, lastError);
+    }
+
+    /**
+     * Queues a rebuild of one shard of a ShardedVectorStore: every file with chunks in it is read,
+     * split and embedded again, whatever its hash, and the shard is then compacted into a fresh
+     * store. Commit activity, which cannot be fetched per document, is embedded again from its
+     * stored chunks. Runs after any pass already queued. Returns false if there is no such shard.
+     */
+    public boolean rebuildShard(String key) {
+        if (!(vectorStore instanceof ShardedVectorStore sharded) || !sharded.shardSizes().containsKey(key)
+                || executor.isShutdown()) {
+            return false;
+        }
+        executor.execute(() -> rebuild(sharded, key));
+        return true;
+    }
+
+    /**
+     * Writes every indexed file with its chunks and vectors as an IndexSnapshot. Files changed by
+     * a pass running at the same time appear in either their old or their new version.
+     */
+    public void exportSnapshot(OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        List<FileEntry> files = List.copyOf(indexedFiles.values());
+        IndexSnapshot.write(out, embeddingModelName, Paths.get(documentsPath), files);
+        System.out.println("Exported index snapshot of " + files.size() + " files in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void restore() {
+        phase = Phase.RESTORING;
+        startedAt = LocalDateTime.now();
+        if (!(vectorStore instanceof EmbeddingVectorStore store)) {
+            return;
+        }
+        List<FileEntry> imported = snapshotImporter.takeImported();
+        if (imported != null) {
+            adoptSnapshot(imported);
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Map<String, FileEntry> restored = checkpoint.restore();
+            int chunks = 0;
+            for (FileEntry entry : restored.values()) {
+                store.add(entry.documents(), entry.embeddings());
+                chunks += track(entry);
+            }
+            restoredChunks = chunks;
+            if (chunks > 0) {
+                System.out.println("Restored " + chunks + " document chunks for " + restored.size()
+                        + " files from " + checkpointFile + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        } catch (IOException | RuntimeException e) {
+            // Worst case everything is embedded again
+            System.err.println("Could not restore ingestion checkpoint " + checkpointFile + ": " + e.getMessage());
+            undoRestore();
+        }
+    }
+
+    /**
+     * Takes over the files of an imported snapshot, already in the store, and makes them the
+     * checkpoint so a restart does not need the snapshot again.
+     */
+    private void adoptSnapshot(List<FileEntry> files) {
+        int chunks = 0;
+        for (FileEntry entry : files) {
+            chunks += track(entry);
+        }
+        restoredChunks = chunks;
+        try {
+            checkpoint.compact(files);
+        } catch (IOException e) {
+            System.err.println("Could not write ingestion checkpoint " + checkpointFile + ": " + e.getMessage());
+        }
+    }
+
+    private int track(FileEntry entry) {
+        List<Document> documents = entry.documents();
+        indexStatistics.recordAdded(documents, entry.embeddings());
+        trackReinforcements(documents);
+        indexedFiles.put(entry.path(), entry);
+        return documents.size();
+    }
+
+    private void ingest() {
+        passQueued.set(false);
+        phase = Phase.INGESTING;
+        filesDone.set(0);
+        filesFailed.set(0);
+        lastError = null;
+        try {
+            Map<String, String> files = scanDocuments();
+            filesTotal.set(files.size());
+
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    System.out.println("Document ingestion interrupted after " + filesDone.get() + " of " + files.size() + " files");
+                    return;
+                }
+                try {
+                    ingestFile(Paths.get(file.getKey()), file.getValue(), false);
+                    filesDone.incrementAndGet();
+                } catch (Exception e) {
+                    filesFailed.incrementAndGet();
+                    lastError = file.getKey() + ": " + e.getMessage();
+                    System.err.println("Error ingesting file: " + file.getKey() + " - " + e.getMessage());
+                }
+            }
+
+            // Activity documents are kept after their days leave the commit window
+            for (String path : Set.copyOf(indexedFiles.keySet())) {
+                if (!files.containsKey(path) && !CommitActivityCollector.isActivityPath(path)) {
+                    removeFile(path);
+                }
+            }
+            if (commitActivity.isEnabled()) {
+                ingestCommitActivity(new TreeSet<>(files.values()));
+            }
+            if (checkpoint.needsCompaction(indexedFiles.size())) {
+                checkpoint.compact(indexedFiles.values());
+            }
+
+            phase = Phase.READY;
+            completedAt = LocalDateTime.now();
+            System.out.println("Document ingestion finished: " + indexStatistics.getTotalChunks() + " chunks from "
+                    + indexedFiles.size() + " files" + (filesFailed.get() > 0 ? ", " + filesFailed.get() + " failed" : ""));
+        } catch (Exception e) {
+            phase = Phase.FAILED;
+            lastError = e.getMessage();
+            System.err.println("Document ingestion failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Maps each document file to the user whose folder it is in.
+     */
+    private Map<String, String> scanDocuments() throws IOException {
+        Map<String, String> files = new LinkedHashMap<>();
+        Path documentsDir = Paths.get(documentsPath);
+        if (!Files.exists(documentsDir)) {
+            System.out.println("Documents directory does not exist: " + documentsPath);
+            return files;
+        }
+
+        try (Stream<Path> userDirs = Files.list(documentsDir)) {
+            for (Path userDir : userDirs.filter(Files::isDirectory).sorted().toList()) {
+                String username = userDir.getFileName().toString();
+                // Skip non-username directories
+                if (username.startsWith(".")) {
+                    continue;
+                }
+                try (Stream<Path> userFiles = Files.list(userDir)) {
+                    userFiles.filter(file -> file.toString().endsWith(".md") || file.toString().endsWith(REINFORCEMENTS_FILE))
+                            .sorted()
+                            .forEach(file -> files.put(file.toString(), username));
+                } catch (IOException e) {
+                    System.err.println("Error reading user directory: " + userDir + " - " + e.getMessage());
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("No team documents found in path: " + documentsPath);
+        }
+        return files;
+    }
+
+    private void rebuild(ShardedVectorStore sharded, String key) {
+        long start = System.nanoTime();
+        List<FileEntry> files = indexedFiles.values().stream()
+                .filter(entry -> entry.ids().stream().anyMatch(id -> key.equals(sharded.shardOf(id))))
+                .sorted(Comparator.comparing(FileEntry::path))
+                .toList();
+        int failed = 0;
+        for (FileEntry entry : files) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                Path file = Paths.get(entry.path());
+                if (CommitActivityCollector.isActivityPath(entry.path())) {
+                    reembed(entry);
+                } else if (Files.exists(file)) {
+                    ingestFile(file, file.getParent().getFileName().toString(), true);
+                } else {
+                    removeFile(entry.path());
+                }
+            } catch (Exception e) {
+                failed++;
+                lastError = entry.path() + ": " + e.getMessage();
+                System.err.println("Error rebuilding " + entry.path() + " - " + e.getMessage());
+            }
+        }
+        sharded.compactShard(key);
+        System.out.println("Rebuilt shard " + key + " from " + files.size() + " files in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms" + (failed > 0 ? ", " + failed + " failed" : ""));
+    }
+
+    // Same chunks and IDs, fresh vectors
+    private void reembed(FileEntry entry) throws IOException {
+        EmbeddingVectorStore store = (EmbeddingVectorStore) vectorStore;
+        List<Document> chunks = entry.documents();
+        List<float[]> embeddings = new ArrayList<>(chunks.size());
+        for (Document chunk : chunks) {
+            embeddings.add(store.getEmbeddingModel().embed(chunk));
+        }
+        store.add(chunks, embeddings);
+        indexStatistics.recordEmbeddingsComputed(chunks.size());
+        indexStatistics.recordAdded(chunks, embeddings);
+
+        List<Chunk> checkpointed = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            checkpointed.add(Chunk.of(chunks.get(i), embeddings.get(i)));
+        }
+        FileEntry updated = new FileEntry(entry.path(), entry.hash(), checkpointed);
+        indexedFiles.put(updated.path(), updated);
+        checkpoint.append(updated);
+    }
+
+    private void ingestCommitActivity(Set<String> usernames) {
+        for (Map.Entry<String, Document> activity : commitActivity.collect(usernames).entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Document document = activity.getValue();
+            String username = (String) document.getMetadata().get("username");
+            try {
+                ingestDocument(activity.getKey(), sha256(document.getText().getBytes(StandardCharsets.UTF_8)),
+                        () -> document, username, activity.getKey(), false);
+            } catch (Exception e) {
+                lastError = activity.getKey() + ": " + e.getMessage();
+                System.err.println("Error ingesting commit activity: " + activity.getKey() + " - " + e.getMessage());
+            }
+        }
+    }
+
+    private void ingestFile(Path file, String username, boolean force) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        ingestDocument(file.toString(), sha256(bytes),
+                () -> readDocument(file, username, new String(bytes, StandardCharsets.UTF_8)),
+                username, file.getFileName().toString(), force);
+    }
+
+    /**
+     * Splits and embeds a document unless the version with this hash is already indexed and
+     * force is false.
+     */
+    private void ingestDocument(String path, String hash, Supplier<Document> document, String username, String name,
+                                boolean force) throws IOException {
+        FileEntry previous = indexedFiles.get(path);
+        if (!force && previous != null && previous.hash().equals(hash)) {
+            indexStatistics.recordEmbeddingsReused(previous.chunks().size());
+            return;
+        }
+
+        List<Document> chunks = splitter.split(document.get());
+        List<float[]> embeddings = new ArrayList<>(chunks.size());
+        if (vectorStore instanceof EmbeddingVectorStore store) {
+            for (Document chunk : chunks) {
+                embeddings.add(store.getEmbeddingModel().embed(chunk));
+            }
+            store.add(chunks, embeddings);
+        } else {
+            vectorStore.add(chunks);
+        }
+        indexStatistics.recordEmbeddingsComputed(chunks.size());
+        indexStatistics.recordAdded(chunks, embeddings);
+
+        // Added before deleting, so the file never drops out of search results. An edit through
+        // the API may have replaced the previous reinforcement chunks, so those are dropped too.
+        Set<String> stale = new LinkedHashSet<>(trackReinforcements(chunks));
+        if (previous != null) {
+            stale.addAll(previous.ids());
+        }
+        deleteChunks(stale);
+
+        List<Chunk> checkpointed = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            checkpointed.add(Chunk.of(chunks.get(i), i < embeddings.size() ? embeddings.get(i) : null));
+        }
+        FileEntry entry = new FileEntry(path, hash, checkpointed);
+        indexedFiles.put(entry.path(), entry);
+        // Stores that embed internally don't hand back vectors, so there is nothing to restore from
+        if (embeddings.size() == chunks.size()) {
+            checkpoint.append(entry);
+        }
+        System.out.println("Embedded " + chunks.size() + " chunks from " + name + " for user: " + username);
+    }
+
+    private Document readDocument(Path file, String username, String content) {
+        String filename = file.getFileName().toString();
+        Map<String, Object> metadata = new HashMap<>();
+        // Add metadata to identify the source file and user
+        metadata.put("source", filename);
+        metadata.put("username", username);
+        // Determine document type based on filename
+        metadata.put("type", filename.endsWith(REINFORCEMENTS_FILE) ? "reinforcements" : "team-activity");
+        metadata.put("filepath", file.toString());
+
+        Matcher matcher = DATE_PATTERN.matcher(filename);
+        if (matcher.find()) {
+            metadata.put("date", matcher.group(1));
+        }
+        return new Document(content, metadata);
+    }
+
+    private void removeFile(String path) throws IOException {
+        FileEntry entry = indexedFiles.remove(path);
+        Object username = entry.chunks().isEmpty() ? null : entry.chunks().get(0).metadata().get("username");
+        dropChunks(entry, username != null ? username.toString() : null);
+        checkpoint.remove(path);
+        System.out.println("Removed chunks of deleted file: " + path);
+    }
+
+    private void dropChunks(FileEntry entry, String username) {
+        deleteChunks(entry.ids());
+        if (entry.path().endsWith(REINFORCEMENTS_FILE)) {
+            reinforcementIndexer.untrack(username, entry.ids());
+        }
+    }
+
+    private void deleteChunks(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        vectorStore.delete(List.copyOf(ids));
+        indexStatistics.recordRemoved(ids);
+    }
+
+    // Let the indexer replace reinforcement chunks when they are edited later; returns the chunks it had before
+    private List<String> trackReinforcements(List<Document> chunks) {
+        List<String> replaced = new ArrayList<>();
+        chunks.stream()
+                .filter(chunk -> "reinforcements".equals(chunk.getMetadata().get("type")))
+                .collect(Collectors.groupingBy(chunk -> (String) chunk.getMetadata().get("username"),
+                        Collectors.mapping(Document::getId, Collectors.toList())))
+                .forEach((username, ids) -> replaced.addAll(reinforcementIndexer.replace(username, ids)));
+        return replaced;
+    }
+
+    private void undoRestore() {
+        for (FileEntry entry : indexedFiles.values()) {
+            Object username = entry.chunks().isEmpty() ? null : entry.chunks().get(0).metadata().get("username");
+            dropChunks(entry, username != null ? username.toString() : null);
+        }
+        indexedFiles.clear();
+        restoredChunks = 0;
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private void closeCheckpoint() {
+        try {
+            if (checkpoint != null) {
+                checkpoint.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Error closing ingestion checkpoint: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        closeCheckpoint();
+    }
+
+    /**
+     * Snapshot of ingestion progress, returned by /api/status and with "warming up" answers.
+     */
+    public static class Status {
+        private final Phase phase;
+        private final boolean serving;
+        private final int filesTotal;
+        private final int filesDone;
+        private final int filesFailed;
+        private final int restoredChunks;
+        private final LocalDateTime startedAt;
+        private final LocalDateTime completedAt;
+        private final String lastError;
+
+        Status(Phase phase, boolean serving, int filesTotal, int filesDone, int filesFailed, int restoredChunks,
+               LocalDateTime startedAt, LocalDateTime completedAt, String lastError) {
+            this.phase = phase;
+            this.serving = serving;
+            this.filesTotal = filesTotal;
+            this.filesDone = filesDone;
+            this.filesFailed = filesFailed;
+            this.restoredChunks = restoredChunks;
+            this.startedAt = startedAt;
+            this.completedAt = completedAt;
+            this.lastError = lastError;
+        }
+
+        public Phase getPhase() { return phase; }
+        public boolean isServing() { return serving; }
+        public int getFilesTotal() { return filesTotal; }
+        public int getFilesDone() { return filesDone; }
+        public int getFilesFailed() { return filesFailed; }
+        public int getRestoredChunks() { return restoredChunks; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getCompletedAt() { return completedAt; }
+        public String getLastError() { return lastError; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("phase", phase.name().toLowerCase());
+            map.put("serving", serving);
+            map.put("filesTotal", filesTotal);
+            map.put("filesDone", filesDone);
+            map.put("filesFailed", filesFailed);
+            map.put("restoredChunks", restoredChunks);
+            map.put("startedAt", startedAt != null ? startedAt.toString() : null);
+            map.put("completedAt", completedAt != null ? completedAt.toString() : null);
+            if (lastError != null) {
+                map.put("lastError", lastError);
+            }
+            return map;
+        }
+    }
+}
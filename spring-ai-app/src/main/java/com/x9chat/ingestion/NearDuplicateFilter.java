@@ -0,0 +1,112 @@
+package com.x9chat.ingestion;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Remembers the texts it has accepted and rejects ones that are nearly the same, using MinHash
+ * signatures over character shingles and locality-sensitive hashing to find candidates.
+ *
+ * Each signature is split into bands; two texts become candidates when any band matches, and
+ * a candidate counts as a duplicate when the share of equal signature values (an estimate of
+ * the Jaccard similarity of their shingle sets) reaches the threshold. With 8 bands of 8 rows,
+ * texts below about 0.5 similarity rarely become candidates at all, so a check costs a few
+ * map lookups however many texts have been accepted. Not thread-safe.
+ */
+class NearDuplicateFilter {
+
+    private static final int SHINGLE = 4;
+    private static final int BANDS = 8;
+    private static final int ROWS = 8;
+    private static final int HASHES = BANDS * ROWS;
+
+    // Fixed seeds, so the same texts are kept on every ingestion pass
+    private static final long[] SEEDS = new SplittableRandom(0x5eed).longs(HASHES).toArray();
+
+    private final double threshold;
+    private final List<long[]> signatures = new ArrayList<>();
+    private final List<Map<Long, List<Integer>>> buckets = new ArrayList<>(BANDS);
+
+    NearDuplicateFilter(double threshold) {
+        this.threshold = threshold;
+        for (int band = 0; band < BANDS; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Accepts the text unless a near-duplicate was accepted before. Returns false when rejected.
+     */
+    boolean add(String text) {
+        long[] signature = signature(text);
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            keys[band] = bandKey(signature, band);
+            for (int candidate : buckets.get(band).getOrDefault(keys[band], List.of())) {
+                if (similarity(signature, signatures.get(candidate)) >= threshold) {
+                    return false;
+                }
+            }
+        }
+        int index = signatures.size();
+        signatures.add(signature);
+        for (int band = 0; band < BANDS; band++) {
+            buckets.get(band).computeIfAbsent(keys[band], key -> new ArrayList<>(1)).add(index);
+        }
+        return true;
+    }
+
+    static long[] signature(String text) {
+        long[] signature = new long[HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int shingles = Math.max(1, bytes.length - SHINGLE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = shingleHash(bytes, start, Math.min(SHINGLE, bytes.length));
+            for (int i = 0; i < HASHES; i++) {
+                signature[i] = Math.min(signature[i], mix(shingle ^ SEEDS[i]));
+            }
+        }
+        return signature;
+    }
+
+    static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = 1125899906842597L;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = 31 * key + signature[row];
+        }
+        return key;
+    }
+
+    // FNV-1a over the shingle's bytes
+    private static long shingleHash(byte[] bytes, int start, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < start + length; i++) {
+            hash ^= bytes[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // SplitMix64 finalizer; one seed per signature row stands in for a random permutation
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,122 @@
+package com.x9chat.ingestion;
+
+import com.x9chat.ingestion.IngestionCheckpoint.FileEntry;
+import com.x9chat.vectorstore.EmbeddingVectorStore;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads an index snapshot into the vector store while it is being created, when
+ * app.snapshot.import-from names a file or an http(s) URL such as another instance's
+ * /api/index/snapshot.
+ *
+ * The snapshot is read and its checksum verified before anything reaches the store, then all
+ * vectors go in with one bulk add. Its manifest is handed to IngestionService in place of the
+ * checkpoint, so the first pass only embeds files that differ from the snapshot. A snapshot
+ * that is unreadable or was built with another embedding model is logged and ignored.
+ * Over http(s) the request carries app.snapshot.token, and a source that has not started
+ * answering within app.snapshot.request-timeout-ms is given up on.
+ */
+@Component
+public class SnapshotImporter {
+
+    @Value("${app.snapshot.import-from:}")
+    private String importFrom;
+
+    @Value("${app.snapshot.token:}")
+    private String token;
+
+    @Value("${app.snapshot.request-timeout-ms:60000}")
+    private long requestTimeoutMs;
+
+    @Value("${app.documents.path:../public}")
+    private String documentsPath;
+
+    @Value("${spring.ai.ollama.embedding.options.model:nomic-embed-text}")
+    private String embeddingModelName;
+
+    private volatile List<FileEntry> imported;
+
+    public void importInto(EmbeddingVectorStore store) {
+        if (importFrom == null || importFrom.isBlank()) {
+            return;
+        }
+        long start = System.nanoTime();
+        String source = importFrom.trim();
+        IndexSnapshot snapshot;
+        // The client is only needed for a URL; it is closed, with its connection, once the body is read
+        try (HttpClient client = isUrl(source) ? HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build() : null;
+             InputStream in = open(client, source)) {
+            snapshot = IndexSnapshot.read(in);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not import index snapshot " + importFrom + ": " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!snapshot.getModel().equals(embeddingModelName)) {
+            System.err.println("Ignoring index snapshot " + importFrom + ": built with " + snapshot.getModel()
+                    + ", this instance embeds with " + embeddingModelName);
+            return;
+        }
+        long readMillis = (System.nanoTime() - start) / 1_000_000;
+
+        List<FileEntry> files = snapshot.files(Paths.get(documentsPath));
+        List<Document> documents = new ArrayList<>(snapshot.getChunkCount());
+        List<float[]> embeddings = new ArrayList<>(snapshot.getChunkCount());
+        for (FileEntry file : files) {
+            documents.addAll(file.documents());
+            embeddings.addAll(file.embeddings());
+        }
+        store.add(documents, embeddings);
+        imported = files;
+        System.out.println("Imported " + documents.size() + " chunks for " + files.size() + " files ("
+                + snapshot.getDimensions() + " dimensions, created " + snapshot.getCreatedAt() + ") from " + importFrom
+                + " in " + (System.nanoTime() - start) / 1_000_000 + " ms, " + readMillis + " ms reading");
+    }
+
+    /**
+     * The manifest of the imported snapshot, once; null when nothing was imported.
+     */
+    List<FileEntry> takeImported() {
+        List<FileEntry> files = imported;
+        imported = null;
+        return files;
+    }
+
+    private static boolean isUrl(String source) {
+        return source.startsWith("http://") || source.startsWith("https://");
+    }
+
+    private InputStream open(HttpClient client, String source) throws IOException, InterruptedException {
+        if (client == null) {
+            return Files.newInputStream(Paths.get(source));
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(source))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .GET();
+        if (token != null && !token.isBlank()) {
+            request.header("Authorization", "Bearer " + token.trim());
+        }
+        HttpResponse<InputStream> response = client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+}
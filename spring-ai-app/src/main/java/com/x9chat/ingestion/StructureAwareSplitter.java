@@ -0,0 +1,306 @@
+package com.x9chat.ingestion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.document.DocumentTransformer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits team documents along their structure instead of at fixed token offsets.
+ *
+ * Markdown notes are cut at headings, and paragraphs and bullet groups are kept whole;
+ * consecutive small sections are packed together until the chunk size is reached.
+ * A reinforcements.json document becomes one chunk per reinforcement, rendered as
+ * plain text. Chunks under a heading and reinforcement chunks get a "sectionPath"
+ * metadata entry naming where they came from, e.g. "1:1 with Ana > Blockers" or
+ * "reinforcements/3"; text before the first heading, or in a note without any, has none.
+ */
+@Component
+public class StructureAwareSplitter implements DocumentTransformer {
+
+    public static final String SECTION_PATH = "sectionPath";
+
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*?)\\s*#*\\s*$");
+    private static final Pattern LIST_ITEM = Pattern.compile("^\\s*([-*+]|\\d+[.)])\\s+.*");
+    private static final String PATH_SEPARATOR = " > ";
+
+    private final Encoding encoding = Encodings.newLazyEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int chunkSize;
+    private final int overlap;
+
+    public StructureAwareSplitter(@Value("${app.chunking.chunk-size:512}") int chunkSize,
+                                  @Value("${app.chunking.overlap:64}") int overlap) {
+        if (chunkSize <= 0 || overlap < 0 || overlap >= chunkSize) {
+            throw new IllegalArgumentException("Chunk overlap must be between 0 and the chunk size");
+        }
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+    }
+
+    @Override
+    public List<Document> apply(List<Document> documents) {
+        List<Document> chunks = new ArrayList<>();
+        for (Document document : documents) {
+            chunks.addAll(split(document));
+        }
+        return chunks;
+    }
+
+    public List<Document> split(Document document) {
+        if ("reinforcements".equals(document.getMetadata().get("type"))) {
+            try {
+                return splitReinforcements(document);
+            } catch (IOException e) {
+                System.err.println("Could not parse reinforcements from " + document.getMetadata().get("source")
+                        + ", splitting as text: " + e.getMessage());
+            }
+        }
+        return splitMarkdown(document);
+    }
+
+    private List<Document> splitReinforcements(Document document) throws IOException {
+        JsonNode root = objectMapper.readTree(document.getText());
+        Object username = document.getMetadata().get("username");
+
+        List<Document> chunks = new ArrayList<>();
+        for (JsonNode reinforcement : root.path("reinforcements")) {
+            String id = reinforcement.path("id").asText();
+
+            StringBuilder text = new StringBuilder("Reinforcement #").append(id);
+            if (username != null) {
+                text.append(" for ").append(username);
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = reinforcement.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!field.getKey().equals("id") && !field.getValue().isNull()) {
+                    String value = field.getValue().isValueNode() ? field.getValue().asText() : field.getValue().toString();
+                    if (!value.isBlank()) {
+                        text.append('\n').append(field.getKey()).append(": ").append(value);
+                    }
+                }
+            }
+
+            Map<String, Object> metadata = new HashMap<>(document.getMetadata());
+            metadata.put(SECTION_PATH, "reinforcements/" + id);
+            metadata.put("reinforcementId", id);
+            putIfText(metadata, "category", reinforcement.path("category"));
+            putIfText(metadata, "status", reinforcement.path("status"));
+            putIfText(metadata, "priority", reinforcement.path("priority"));
+
+            // A single oversized entry is still cut to the chunk size
+            for (String piece : splitOversized(text.toString())) {
+                chunks.add(new Document(piece, new HashMap<>(metadata)));
+            }
+        }
+        return chunks;
+    }
+
+    private List<Document> splitMarkdown(Document document) {
+        List<Document> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        // Tokens added to the current chunk beyond the overlap carried from the previous one
+        int freshTokens = 0;
+        String chunkPath = null;
+        String lastPath = null;
+
+        for (Block block : parseBlocks(document.getText())) {
+            String text = block.heading != null ? block.heading + "\n" + block.text : block.text;
+            for (String piece : splitOversized(text)) {
+                int pieceTokens = encoding.countTokens(piece);
+
+                if (freshTokens > 0 && currentTokens + pieceTokens > chunkSize) {
+                    chunks.add(chunk(document, current.toString(), chunkPath));
+                    // Overlap only carries context within a section, never across a heading
+                    String carried = block.path.equals(lastPath) ? tail(current.toString(), overlap) : "";
+                    current.setLength(0);
+                    currentTokens = 0;
+                    freshTokens = 0;
+                    chunkPath = null;
+
+                    // Name the section when a chunk starts in the middle of it
+                    if (block.heading == null && !block.path.isEmpty()) {
+                        current.append('[').append(block.path).append("]\n");
+                        currentTokens += encoding.countTokens(current.toString());
+                    }
+                    if (!carried.isEmpty()) {
+                        current.append(carried);
+                        currentTokens += encoding.countTokens(carried);
+                    }
+                }
+
+                if (chunkPath == null) {
+                    chunkPath = block.path;
+                }
+                if (current.length() > 0 && current.charAt(current.length() - 1) != '\n') {
+                    current.append("\n\n");
+                }
+                current.append(piece);
+                currentTokens += pieceTokens;
+                freshTokens += pieceTokens;
+                lastPath = block.path;
+            }
+        }
+
+        if (freshTokens > 0) {
+            chunks.add(chunk(document, current.toString(), chunkPath));
+        }
+        return chunks;
+    }
+
+    /**
+     * Breaks markdown into paragraphs and bullet groups, each tagged with its heading path.
+     * A block carries the heading line that opened its section when it is the first block of it.
+     */
+    private List<Block> parseBlocks(String markdown) {
+        List<Block> blocks = new ArrayList<>();
+        List<String> headings = new ArrayList<>();
+        String pendingHeading = null;
+        StringBuilder block = new StringBuilder();
+        boolean inList = false;
+        boolean inFence = false;
+
+        for (String line : markdown.split("\\R", -1)) {
+            if (line.trim().startsWith("```")) {
+                // A fence at the margin ends a bullet group; an indented one belongs to its item
+                if (!inFence && inList && !line.startsWith(" ") && !line.startsWith("\t")) {
+                    pendingHeading = flush(blocks, block, headings, pendingHeading);
+                    inList = false;
+                }
+                inFence = !inFence;
+            }
+
+            Matcher heading = inFence ? null : HEADING.matcher(line);
+            if (heading != null && heading.matches()) {
+                pendingHeading = flush(blocks, block, headings, pendingHeading);
+                int level = heading.group(1).length();
+                while (headings.size() >= level) {
+                    headings.remove(headings.size() - 1);
+                }
+                while (headings.size() < level - 1) {
+                    headings.add("");
+                }
+                headings.add(heading.group(2));
+                pendingHeading = line.trim();
+                inList = false;
+                continue;
+            }
+
+            if (!inFence && line.isBlank()) {
+                // Blank lines inside a bullet group do not end it
+                if (!inList) {
+                    pendingHeading = flush(blocks, block, headings, pendingHeading);
+                }
+                continue;
+            }
+
+            boolean listLine = !inFence && LIST_ITEM.matcher(line).matches();
+            boolean continuation = inList && (line.startsWith(" ") || line.startsWith("\t"));
+            if (!inFence && inList && !listLine && !continuation) {
+                pendingHeading = flush(blocks, block, headings, pendingHeading);
+            } else if (!inFence && !inList && listLine && block.length() > 0) {
+                pendingHeading = flush(blocks, block, headings, pendingHeading);
+            }
+            inList = !inFence && (listLine || continuation);
+
+            if (block.length() > 0) {
+                block.append('\n');
+            }
+            block.append(line);
+        }
+        flush(blocks, block, headings, pendingHeading);
+        return blocks;
+    }
+
+    private String flush(List<Block> blocks, StringBuilder block, List<String> headings, String pendingHeading) {
+        if (block.length() == 0 || block.toString().isBlank()) {
+            block.setLength(0);
+            return pendingHeading;
+        }
+        String path = String.join(PATH_SEPARATOR, headings.stream().filter(h -> !h.isEmpty()).toList());
+        blocks.add(new Block(path, pendingHeading, block.toString().strip()));
+        block.setLength(0);
+        return null;
+    }
+
+    /**
+     * Returns the text as-is if it fits the chunk size, otherwise cuts it by lines and then by words.
+     */
+    private List<String> splitOversized(String text) {
+        if (encoding.countTokens(text) <= chunkSize) {
+            return List.of(text);
+        }
+
+        List<String> pieces = new ArrayList<>();
+        StringBuilder piece = new StringBuilder();
+        int pieceTokens = 0;
+        for (String unit : text.split("(?<=\\n)|(?<=\\s)(?=\\S)")) {
+            int unitTokens = encoding.countTokens(unit);
+            if (pieceTokens > 0 && pieceTokens + unitTokens > chunkSize) {
+                pieces.add(piece.toString().strip());
+                piece.setLength(0);
+                pieceTokens = 0;
+            }
+            piece.append(unit);
+            pieceTokens += unitTokens;
+        }
+        if (!piece.toString().isBlank()) {
+            pieces.add(piece.toString().strip());
+        }
+        return pieces;
+    }
+
+    /**
+     * Returns the trailing whole lines of a chunk that fit in the given number of tokens.
+     */
+    private String tail(String text, int tokens) {
+        if (tokens == 0) {
+            return "";
+        }
+        String[] lines = text.split("\\R");
+        StringBuilder tail = new StringBuilder();
+        int used = 0;
+        for (int i = lines.length - 1; i >= 0; i--) {
+            int lineTokens = encoding.countTokens(lines[i]);
+            if (used + lineTokens > tokens) {
+                break;
+            }
+            tail.insert(0, lines[i] + (tail.length() > 0 ? "\n" : ""));
+            used += lineTokens;
+        }
+        return tail.toString();
+    }
+
+    private static Document chunk(Document source, String content, String sectionPath) {
+        Map<String, Object> metadata = new HashMap<>(source.getMetadata());
+        if (sectionPath != null && !sectionPath.isEmpty()) {
+            metadata.put(SECTION_PATH, sectionPath);
+        }
+        return new Document(content.strip(), metadata);
+    }
+
+    private static void putIfText(Map<String, Object> metadata, String key, JsonNode value) {
+        if (value.isTextual() && !value.asText().isBlank()) {
+            metadata.put(key, value.asText());
+        }
+    }
+
+    private record Block(String path, String heading, String text) {
+    }
+}
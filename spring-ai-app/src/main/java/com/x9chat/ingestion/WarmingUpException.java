@@ -0,0 +1,24 @@
+package com.x9chat.ingestion;
+
+/**
+ * Thrown when a question arrives before any documents have been restored or embedded, or
+ * after ingestion failed without indexing any.
+ */
+public class WarmingUpException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Only read by the handler in this process, never serialized
+    private final transient IngestionService.Status status;
+
+    public WarmingUpException(IngestionService.Status status) {
+        super(status.getPhase() == IngestionService.Phase.FAILED
+                ? "The team knowledge base could not be loaded (" + status.getLastError()
+                + "). Ask an administrator to check the documents and refresh the index."
+                : "The team knowledge base is still warming up (" + status.getFilesDone() + " of "
+                + status.getFilesTotal() + " files embedded). Please try again shortly.");
+        this.status = status;
+    }
+
+    public IngestionService.Status getStatus() { return status; }
+}
@@ -0,0 +1,261 @@
+package com.x9chat.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Running counts of what the vector store holds, updated by whoever adds or removes chunks,
+ * and published as the x9.index gauges.
+ *
+ * Every chunk's user, type, source file and approximate size are remembered by id, so a removal
+ * only needs the ids and every counter stays exact. Reading a counter never touches the store;
+ * /api/stats is polled by the dashboard and costs the same however large the index grows.
+ * The dates of each user's notes are kept too, so questions like "when was alice's last 1:1?"
+ * can be answered without a search.
+ */
+@Component
+public class IndexStatistics {
+
+    private static final String UNKNOWN = "unknown";
+    private static final String NOTE_TYPE = "team-activity";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Footprint> chunks = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> chunksByFile = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> chunksByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> chunksByType = new ConcurrentHashMap<>();
+    // Dated source files per user and day
+    private final ConcurrentMap<String, NavigableMap<LocalDate, AtomicInteger>> noteDatesByUser = new ConcurrentHashMap<>();
+    private final AtomicLong totalChunks = new AtomicLong();
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong indexBytes = new AtomicLong();
+    private final AtomicLong embeddingsReused = new AtomicLong();
+    private final AtomicLong embeddingsComputed = new AtomicLong();
+    private volatile int dimensions;
+    private volatile Instant lastUpdated;
+
+    public IndexStatistics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("x9.index.chunks", totalChunks, AtomicLong::get)
+            .description("Chunks currently held in the vector store")
+            .register(registry);
+        Gauge.builder("x9.index.documents", documents, AtomicLong::get)
+            .description("Source files with at least one chunk in the vector store")
+            .register(registry);
+        Gauge.builder("x9.index.bytes", indexBytes, AtomicLong::get)
+            .description("Approximate size of the indexed chunk text and float vectors")
+            .baseUnit("bytes")
+            .register(registry);
+    }
+
+    public void recordAdded(List<Document> added) {
+        recordAdded(added, List.of());
+    }
+
+    /**
+     * Counts chunks that were just added. The embeddings, when the caller has them, fix the
+     * vector size used for index bytes.
+     */
+    public void recordAdded(List<Document> added, List<float[]> embeddings) {
+        if (!embeddings.isEmpty()) {
+            dimensions = embeddings.get(0).length;
+        }
+        for (Document chunk : added) {
+            Footprint footprint = Footprint.of(chunk, dimensions);
+            Footprint replaced = chunks.put(chunk.getId(), footprint);
+            if (replaced != null) {
+                // Re-adding an id overwrites it in the store too
+                count(replaced, -1);
+            }
+            count(footprint, 1);
+        }
+        if (!added.isEmpty()) {
+            lastUpdated = Instant.now();
+        }
+    }
+
+    public void recordRemoved(Collection<String> ids) {
+        boolean removed = false;
+        for (String id : ids) {
+            Footprint footprint = chunks.remove(id);
+            if (footprint != null) {
+                count(footprint, -1);
+                removed = true;
+            }
+        }
+        if (removed) {
+            lastUpdated = Instant.now();
+        }
+    }
+
+    /**
+     * Counts chunk embeddings taken from the ingestion checkpoint instead of asking the model.
+     */
+    public void recordEmbeddingsReused(int count) {
+        embeddingsReused.addAndGet(count);
+    }
+
+    public void recordEmbeddingsComputed(int count) {
+        embeddingsComputed.addAndGet(count);
+    }
+
+    public long getTotalChunks() {
+        return totalChunks.get();
+    }
+
+    public long getDocuments() {
+        return documents.get();
+    }
+
+    public long getIndexBytes() {
+        return indexBytes.get();
+    }
+
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public long getEmbeddingsReused() {
+        return embeddingsReused.get();
+    }
+
+    public long getEmbeddingsComputed() {
+        return embeddingsComputed.get();
+    }
+
+    /**
+     * Share of chunk embeddings served from the checkpoint, or 0 before anything was embedded.
+     */
+    public double getEmbeddingCacheHitRate() {
+        long reused = embeddingsReused.get();
+        long total = reused + embeddingsComputed.get();
+        return total == 0 ? 0 : (double) reused / total;
+    }
+
+    public Map<String, Long> getChunksByUser() {
+        return snapshot(chunksByUser);
+    }
+
+    public Map<String, Long> getChunksByType() {
+        return snapshot(chunksByType);
+    }
+
+    public Optional<LocalDate> getLatestNoteDate(String username) {
+        NavigableMap<LocalDate, AtomicInteger> dates = noteDatesByUser.get(username);
+        return Optional.ofNullable(dates).flatMap(map -> Optional.ofNullable(map.lastEntry())).map(Map.Entry::getKey);
+    }
+
+    /**
+     * Number of dated source files for the user, e.g. one per 1:1. Costs one step per distinct date.
+     */
+    public int getNoteCount(String username) {
+        NavigableMap<LocalDate, AtomicInteger> dates = noteDatesByUser.get(username);
+        return dates == null ? 0 : dates.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public Optional<LocalDate> getFirstNoteDate(String username) {
+        NavigableMap<LocalDate, AtomicInteger> dates = noteDatesByUser.get(username);
+        return Optional.ofNullable(dates).flatMap(map -> Optional.ofNullable(map.firstEntry())).map(Map.Entry::getKey);
+    }
+
+    private void count(Footprint footprint, int sign) {
+        userChunks(footprint.username()).addAndGet(sign);
+        chunksByType.computeIfAbsent(footprint.type(), type -> new AtomicLong()).addAndGet(sign);
+        totalChunks.addAndGet(sign);
+        indexBytes.addAndGet(sign * footprint.bytes());
+        if (footprint.file() != null) {
+            chunksByFile.compute(footprint.file(), (file, count) -> {
+                int updated = (count != null ? count.get() : 0) + sign;
+                if (updated == 0) {
+                    documents.decrementAndGet();
+                    countNote(footprint, -1);
+                    return null;
+                }
+                if (count == null) {
+                    documents.incrementAndGet();
+                    countNote(footprint, 1);
+                    return new AtomicInteger(updated);
+                }
+                count.set(updated);
+                return count;
+            });
+        }
+    }
+
+    // Called once per source file as its first chunk arrives or its last one goes.
+    // Only notes count; commit activity is dated too but is not a meeting
+    private void countNote(Footprint footprint, int sign) {
+        if (footprint.date() == null || !NOTE_TYPE.equals(footprint.type())) {
+            return;
+        }
+        noteDatesByUser.computeIfAbsent(footprint.username(), user -> new ConcurrentSkipListMap<>())
+            .compute(footprint.date(), (date, count) -> {
+                int updated = (count != null ? count.get() : 0) + sign;
+                return updated > 0 ? new AtomicInteger(updated) : null;
+            });
+    }
+
+    private AtomicLong userChunks(String username) {
+        return chunksByUser.computeIfAbsent(username, user -> {
+            AtomicLong count = new AtomicLong();
+            Gauge.builder("x9.index.user.chunks", count, AtomicLong::get)
+                .description("Chunks in the vector store per team member")
+                .tag("user", user)
+                .register(registry);
+            return count;
+        });
+    }
+
+    // Sorted, and without users or types whose chunks have all been removed
+    private static Map<String, Long> snapshot(Map<String, AtomicLong> counts) {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((key, count) -> {
+            long value = count.get();
+            if (value > 0) {
+                snapshot.put(key, value);
+            }
+        });
+        return snapshot;
+    }
+
+    private record Footprint(String username, String type, String file, LocalDate date, long bytes) {
+
+        static Footprint of(Document chunk, int dimensions) {
+            Map<String, Object> metadata = chunk.getMetadata();
+            String content = chunk.getText();
+            long bytes = (content != null ? content.length() : 0) + (long) dimensions * Float.BYTES;
+            return new Footprint(string(metadata.get("username")), string(metadata.get("type")),
+                    metadata.get("filepath") != null ? metadata.get("filepath").toString() : null,
+                    date(metadata.get("date")), bytes);
+        }
+
+        private static LocalDate date(Object value) {
+            try {
+                return value != null ? LocalDate.parse(value.toString()) : null;
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+
+        private static String string(Object value) {
+            return value != null ? value.toString() : UNKNOWN;
+        }
+    }
+}
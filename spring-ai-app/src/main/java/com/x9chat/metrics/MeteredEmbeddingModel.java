@@ -0,0 +1,55 @@
+package com.x9chat.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * Times calls to the embedding model. Single-text calls are how vector stores embed a search
+ * query, so they are recorded as the query_embedding stage; batch and document calls come
+ * from ingestion and are recorded under x9.embedding.
+ */
+public class MeteredEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final RagMetrics ragMetrics;
+    private final Timer ingestionTimer;
+
+    public MeteredEmbeddingModel(EmbeddingModel delegate, RagMetrics ragMetrics, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.ragMetrics = ragMetrics;
+        this.ingestionTimer = Timer.builder("x9.embedding")
+            .description("Latency of embedding calls made while ingesting documents")
+            .register(registry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return ragMetrics.timeStage(RagMetrics.STAGE_QUERY_EMBEDDING, () -> delegate.embed(text));
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return ingestionTimer.record(() -> delegate.embed(document));
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return ingestionTimer.record(() -> delegate.embed(texts));
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return ingestionTimer.record(() -> delegate.call(request));
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
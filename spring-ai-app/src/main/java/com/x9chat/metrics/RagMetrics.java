@@ -0,0 +1,124 @@
+package com.x9chat.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the RAG request path in X9ChatService.
+ *
+ * x9.rag.stage is tagged with the stage name (query_embedding, vector_search,
+ * prompt_template, generation) so a slow answer can be attributed to one of them;
+ * x9.rag.request covers the whole question end to end, and x9.rag.route times the answers
+ * given by each QueryRouter route.
+ */
+@Component
+public class RagMetrics {
+
+    public static final String STAGE_QUERY_EMBEDDING = "query_embedding";
+    public static final String STAGE_VECTOR_SEARCH = "vector_search";
+    public static final String STAGE_PROMPT_TEMPLATE = "prompt_template";
+    public static final String STAGE_GENERATION = "generation";
+
+    private final MeterRegistry registry;
+    private final Counter promptTokens;
+    private final Counter completionTokens;
+    private final DistributionSummary tokensPerSecond;
+
+    public RagMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.promptTokens = Counter.builder("x9.llm.tokens")
+            .description("Tokens sent to and generated by the chat model")
+            .tag("type", "prompt")
+            .register(registry);
+        this.completionTokens = Counter.builder("x9.llm.tokens")
+            .description("Tokens sent to and generated by the chat model")
+            .tag("type", "completion")
+            .register(registry);
+        this.tokensPerSecond = DistributionSummary.builder("x9.llm.tokens.per.second")
+            .description("Completion tokens generated per second of generation time")
+            .publishPercentiles(0.5, 0.95)
+            .register(registry);
+    }
+
+    public <T> T timeStage(String stage, Supplier<T> work) {
+        return stageTimer(stage).record(work);
+    }
+
+    public void recordStage(String stage, long nanos) {
+        stageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Average latency of a stage since startup, or 0 if it has not run yet.
+     */
+    public double meanStageMillis(String stage) {
+        return stageTimer(stage).mean(TimeUnit.MILLISECONDS);
+    }
+
+    public long stageCount(String stage) {
+        return stageTimer(stage).count();
+    }
+
+    public void recordRoute(String route, long nanos) {
+        routeTimer(route).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public double meanRouteMillis(String route) {
+        return routeTimer(route).mean(TimeUnit.MILLISECONDS);
+    }
+
+    public long routeCount(String route) {
+        return routeTimer(route).count();
+    }
+
+    public Timer.Sample startRequest() {
+        return Timer.start(registry);
+    }
+
+    public void stopRequest(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("x9.rag.request")
+            .description("End-to-end latency of a chat question")
+            .tag("outcome", outcome)
+            .register(registry));
+    }
+
+    /**
+     * Records token usage reported by the model for one generation that took the given time.
+     */
+    public void recordUsage(Usage usage, long generationNanos) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            promptTokens.increment(usage.getPromptTokens());
+        }
+        Long generated = usage.getGenerationTokens();
+        if (generated != null) {
+            completionTokens.increment(generated);
+            if (generationNanos > 0) {
+                tokensPerSecond.record(generated / (generationNanos / 1_000_000_000.0));
+            }
+        }
+    }
+
+    private Timer routeTimer(String route) {
+        return Timer.builder("x9.rag.route")
+            .description("Latency of answering a question on each route, from metadata, a small model or the large one")
+            .tag("route", route)
+            .register(registry);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("x9.rag.stage")
+            .description("Latency of each stage of answering a chat question")
+            .tag("stage", stage)
+            .register(registry);
+    }
+}
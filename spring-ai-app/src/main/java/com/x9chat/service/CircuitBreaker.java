@@ -0,0 +1,191 @@
+package com.x9chat.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Gives every call to a model a deadline and stops calling it for a while once it keeps failing.
+ *
+ * Calls run on virtual threads; the caller waits at most the deadline and then gets a
+ * ModelUnavailableException, while the stuck call is interrupted and left to finish on its own.
+ * A call keeps its slot until it really ends, and once maxInFlight calls hold one, new calls
+ * are refused, so a model that ignores interrupts cannot pile up threads without bound.
+ * After failureThreshold failures or timeouts in a row the breaker opens and calls are refused
+ * straight away for openDuration. Then one trial call is let through: success closes the
+ * breaker, failure opens it again.
+ *
+ * Once bound to a registry, published as x9.circuit.state (0 closed, 1 open, 2 half-open) and
+ * x9.circuit.calls, tagged with the breaker name and the call result.
+ */
+public class CircuitBreaker implements MeterBinder, AutoCloseable {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile State state = State.CLOSED;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong saturated = new AtomicLong();
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, int maxInFlight) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-call-", 0).factory());
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("x9.circuit.state", this, breaker -> breaker.state.ordinal())
+            .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .tag("name", name)
+            .register(registry);
+        counter(registry, "success", succeeded);
+        counter(registry, "failure", failed);
+        counter(registry, "timeout", timedOut);
+        counter(registry, "rejected", rejected);
+        counter(registry, "saturated", saturated);
+    }
+
+    /**
+     * Runs the call with the deadline, or throws ModelUnavailableException without running it
+     * while the breaker is open.
+     */
+    public <T> T call(Supplier<T> work, Duration deadline) {
+        boolean trial = admit();
+        if (!inFlight.tryAcquire()) {
+            saturated.incrementAndGet();
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            throw new ModelUnavailableException(name + " has too many calls still running");
+        }
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return work.get();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            throw new ModelUnavailableException(name + " is shutting down");
+        }
+        try {
+            T result = future.get(deadline.toNanos(), TimeUnit.NANOSECONDS);
+            onSuccess(trial);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            onFailure(trial);
+            throw new ModelUnavailableException(name + " did not answer within " + deadline.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            failed.incrementAndGet();
+            onFailure(trial);
+            Throwable cause = e.getCause();
+            throw new ModelUnavailableException(name + " failed: " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            if (trial) {
+                trialInFlight.set(false);
+            }
+            throw new ModelUnavailableException("Interrupted while waiting for " + name);
+        }
+    }
+
+    /**
+     * Interrupts calls still running and stops accepting new ones.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Returns true when this call is the half-open trial
+    private boolean admit() {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (System.nanoTime() - openedAt.get() >= openNanos && trialInFlight.compareAndSet(false, true)) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        rejected.incrementAndGet();
+        throw new ModelUnavailableException(name + " is unavailable after repeated failures; retrying in "
+            + Math.max(0, (openNanos - (System.nanoTime() - openedAt.get())) / 1_000_000) + " ms");
+    }
+
+    private void onSuccess(boolean trial) {
+        succeeded.incrementAndGet();
+        consecutiveFailures.set(0);
+        if (trial || state != State.CLOSED) {
+            if (state != State.CLOSED) {
+                System.out.println("Circuit " + name + " closed");
+            }
+            state = State.CLOSED;
+            trialInFlight.set(false);
+        }
+    }
+
+    private void onFailure(boolean trial) {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (trial || (state == State.CLOSED && failures >= failureThreshold)) {
+            openedAt.set(System.nanoTime());
+            if (state != State.OPEN) {
+                System.err.println("Circuit " + name + " opened after " + failures + " failed calls");
+            }
+            state = State.OPEN;
+            trialInFlight.set(false);
+        }
+    }
+
+    private void counter(MeterRegistry registry, String result, AtomicLong count) {
+        FunctionCounter.builder("x9.circuit.calls", count, AtomicLong::get)
+            .description("Model calls by outcome, including calls refused while the circuit was open")
+            .tags("name", name, "result", result)
+            .register(registry);
+    }
+}
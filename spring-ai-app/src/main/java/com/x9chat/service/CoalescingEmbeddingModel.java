@@ -0,0 +1,51 @@
+package com.x9chat.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+
+/**
+ * Shares one Ollama call between concurrent requests to embed the same query text.
+ * Only single-text calls are coalesced; they are how questions are embedded, while
+ * ingestion embeds distinct chunks one file at a time.
+ */
+public class CoalescingEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final SingleFlight<String, float[]> queries;
+
+    public CoalescingEmbeddingModel(EmbeddingModel delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.queries = new SingleFlight<>("query_embedding", registry);
+    }
+
+    @Override
+    public float[] embed(String text) {
+        // Every caller gets its own copy of the shared vector
+        return queries.execute(text, () -> delegate.embed(text)).clone();
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return delegate.embed(document);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return delegate.embed(texts);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return delegate.call(request);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,132 @@
+package com.x9chat.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An inclusive date range named in a question, such as "this week", "last 30 days",
+ * "in March" or "since 2024-05-01". Either end may be open. Questions that only say
+ * "recently" have no window; recency scoring covers them.
+ */
+public record DateWindow(LocalDate from, LocalDate to, String phrase) {
+
+    private static final String ISO_DATE = "(\\d{4}-\\d{2}-\\d{2})";
+    private static final Pattern BETWEEN = Pattern.compile("\\b(?:between|from) " + ISO_DATE + " (?:and|to|until) " + ISO_DATE);
+    private static final Pattern SINCE = Pattern.compile("\\b(?:since|after) " + ISO_DATE);
+    private static final Pattern BEFORE = Pattern.compile("\\b(?:before|until) " + ISO_DATE);
+    // A bare date ("the 2024-05-01 notes") names a note, not a window
+    private static final Pattern ON = Pattern.compile("\\bon " + ISO_DATE);
+    private static final Pattern LAST_N = Pattern.compile("\\b(?:last|past|previous) (\\d{1,3}) (day|week|month)s?\\b");
+    private static final Pattern RELATIVE = Pattern.compile("\\b(today|yesterday|(?:this|last|past) (?:week|month|year))\\b");
+    private static final Pattern MONTH = Pattern.compile("\\bin (january|february|march|april|may|june|july|august|september"
+            + "|october|november|december)(?: (\\d{4}))?\\b");
+    // Only a year that ends the phrase, so "in 2000 lines" is a count, not a year
+    private static final Pattern YEAR = Pattern.compile("\\bin ((?:19|20)\\d{2})(?=$|[?.!,;:)]"
+            + "| (?:and|or|about|for|with|from|by|when|did|was|were|what|how|who)\\b)");
+
+    /**
+     * Finds the first date window in the question, with relative phrases resolved against today.
+     */
+    public static Optional<DateWindow> parse(String question, LocalDate today) {
+        String text = question.toLowerCase(Locale.ROOT);
+        try {
+            Matcher matcher = BETWEEN.matcher(text);
+            if (matcher.find()) {
+                LocalDate a = LocalDate.parse(matcher.group(1));
+                LocalDate b = LocalDate.parse(matcher.group(2));
+                return Optional.of(new DateWindow(a.isAfter(b) ? b : a, a.isAfter(b) ? a : b, matcher.group()));
+            }
+            if ((matcher = SINCE.matcher(text)).find()) {
+                return Optional.of(new DateWindow(LocalDate.parse(matcher.group(1)), null, matcher.group()));
+            }
+            if ((matcher = BEFORE.matcher(text)).find()) {
+                return Optional.of(new DateWindow(null, LocalDate.parse(matcher.group(1)), matcher.group()));
+            }
+            if ((matcher = ON.matcher(text)).find()) {
+                LocalDate day = LocalDate.parse(matcher.group(1));
+                return Optional.of(new DateWindow(day, day, matcher.group()));
+            }
+        } catch (DateTimeParseException e) {
+            // Not a real date, e.g. 2024-13-40; look for a relative phrase instead
+        }
+
+        Matcher matcher = LAST_N.matcher(text);
+        // "last 0 days" covers no day at all, so it is no window rather than an empty one
+        if (matcher.find() && Integer.parseInt(matcher.group(1)) > 0) {
+            int count = Integer.parseInt(matcher.group(1));
+            LocalDate from = switch (matcher.group(2)) {
+                case "day" -> today.minusDays(count - 1L);
+                case "week" -> today.minusWeeks(count).plusDays(1);
+                default -> today.minusMonths(count).plusDays(1);
+            };
+            return Optional.of(new DateWindow(from, today, matcher.group()));
+        }
+        if ((matcher = RELATIVE.matcher(text)).find()) {
+            return Optional.of(relative(matcher.group(1), today));
+        }
+        if ((matcher = MONTH.matcher(text)).find()) {
+            Month month = Month.valueOf(matcher.group(1).toUpperCase(Locale.ROOT));
+            // Without a year, the latest such month that has started
+            YearMonth yearMonth = matcher.group(2) != null ? YearMonth.of(Integer.parseInt(matcher.group(2)), month)
+                    : YearMonth.of(today.getYear(), month);
+            if (matcher.group(2) == null && yearMonth.atDay(1).isAfter(today)) {
+                yearMonth = yearMonth.minusYears(1);
+            }
+            return Optional.of(new DateWindow(yearMonth.atDay(1), yearMonth.atEndOfMonth(),
+                    "in " + month.getDisplayName(TextStyle.FULL, Locale.ENGLISH) + " " + yearMonth.getYear()));
+        }
+        if ((matcher = YEAR.matcher(text)).find()) {
+            Year year = Year.of(Integer.parseInt(matcher.group(1)));
+            return Optional.of(new DateWindow(year.atDay(1), year.atMonth(12).atEndOfMonth(), matcher.group()));
+        }
+        return Optional.empty();
+    }
+
+    private static DateWindow relative(String phrase, LocalDate today) {
+        return switch (phrase) {
+            case "today" -> new DateWindow(today, today, phrase);
+            case "yesterday" -> new DateWindow(today.minusDays(1), today.minusDays(1), phrase);
+            case "this week" -> new DateWindow(today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)), today, phrase);
+            case "last week" -> {
+                LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).minusWeeks(1);
+                yield new DateWindow(monday, monday.plusDays(6), phrase);
+            }
+            case "past week" -> new DateWindow(today.minusDays(6), today, phrase);
+            case "this month" -> new DateWindow(today.withDayOfMonth(1), today, phrase);
+            case "last month" -> {
+                YearMonth month = YearMonth.from(today).minusMonths(1);
+                yield new DateWindow(month.atDay(1), month.atEndOfMonth(), phrase);
+            }
+            case "past month" -> new DateWindow(today.minusMonths(1).plusDays(1), today, phrase);
+            case "this year" -> new DateWindow(today.withDayOfYear(1), today, phrase);
+            case "last year" -> {
+                Year year = Year.of(today.getYear() - 1);
+                yield new DateWindow(year.atDay(1), year.atMonth(12).atEndOfMonth(), phrase);
+            }
+            default -> new DateWindow(today.minusYears(1).plusDays(1), today, phrase);
+        };
+    }
+
+    /**
+     * Human-readable range for the prompt, e.g. "2024-03-04 to 2024-03-10".
+     */
+    public String describe() {
+        if (from == null) {
+            return "up to " + to;
+        }
+        if (to == null) {
+            return "from " + from;
+        }
+        return from.equals(to) ? "on " + from : from + " to " + to;
+    }
+}
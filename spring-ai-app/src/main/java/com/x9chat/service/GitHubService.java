@@ -1,24 +1,40 @@
 package com.x9chat.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 @Service
-public class GitHubService {
+public class GitHubService implements SmartLifecycle {
 
     @Value("${VITE_GITHUB_TOKEN:}")
     private String githubToken;
@@ -29,12 +45,134 @@ public class GitHubService {
     @Value("${VITE_ORG:}")
     private String githubOrg;
 
-    private final HttpClient httpClient;
+    // Overridable so load tests can point the service at a local stub
+    @Value("${app.github.api-url:https://api.github.com}")
+    private String apiUrl = "https://api.github.com";
+
+    // GitHub calls are few and mostly sequential; a small pool of daemon threads serves the client
+    private static final int HTTP_THREADS = 4;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ExecutorService httpExecutor;
+    // Rebuilt on start, so a CRaC checkpoint never captures open connections
+    private volatile HttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, AtomicLong> rateLimitRemaining = new ConcurrentHashMap<>();
 
-    public GitHubService() {
-        this.httpClient = HttpClient.newHttpClient();
+    public GitHubService(MeterRegistry meterRegistry) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(HTTP_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "github-http-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = newHttpClient();
         this.objectMapper = new ObjectMapper();
+        this.meterRegistry = meterRegistry;
+    }
+
+    private HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(CONNECT_TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(httpExecutor)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        if (httpClient == null) {
+            httpClient = newHttpClient();
+        }
+    }
+
+    /**
+     * Drops the client and its pooled connections; called before a checkpoint and on shutdown.
+     */
+    @Override
+    public void stop() {
+        HttpClient client = httpClient;
+        httpClient = null;
+        if (client != null) {
+            client.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return httpClient != null;
+    }
+
+    // Stop after the web server has drained and start before it accepts requests
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        httpExecutor.shutdownNow();
+    }
+
+    /**
+     * Sends a GitHub request, timing it under x9.github.request and tracking the
+     * rate-limit headroom GitHub reports for the request's resource.
+     *
+     * The body is left as a stream for the caller to parse incrementally (and close); the
+     * timer covers the wait for the response headers.
+     */
+    private HttpResponse<InputStream> send(HttpRequest request, String api) throws IOException, InterruptedException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "error";
+        try {
+            HttpClient client = httpClient;
+            if (client == null) {
+                throw new IOException("GitHub client is stopped");
+            }
+            HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            status = String.valueOf(response.statusCode());
+            response.headers().firstValue("X-RateLimit-Remaining").ifPresent(remaining -> {
+                String resource = response.headers().firstValue("X-RateLimit-Resource").orElse(api);
+                rateLimitGauge(resource).set(Long.parseLong(remaining));
+            });
+            return response;
+        } finally {
+            sample.stop(Timer.builder("x9.github.request")
+                .description("Latency of GitHub API calls")
+                .tag("api", api)
+                .tag("status", status)
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Opens the response body, decompressing it if GitHub honoured our Accept-Encoding: gzip.
+     */
+    private static InputStream body(HttpResponse<InputStream> response) throws IOException {
+        boolean gzip = response.headers().firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+        return gzip ? new GZIPInputStream(response.body(), 8192) : response.body();
+    }
+
+    private static HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Accept-Encoding", "gzip")
+                .header("User-Agent", "X9-Chat-AI");
+    }
+
+    private AtomicLong rateLimitGauge(String resource) {
+        return rateLimitRemaining.computeIfAbsent(resource, key -> {
+            AtomicLong remaining = new AtomicLong();
+            Gauge.builder("x9.github.ratelimit.remaining", remaining, AtomicLong::get)
+                .description("Requests left in the current GitHub rate-limit window")
+                .tag("resource", key)
+                .register(meterRegistry);
+            return remaining;
+        });
     }
 
     public List<CommitData> fetchRecentCommits(String username, int days) {
@@ -62,12 +200,10 @@ public class GitHubService {
     }
 
     private List<String> getRecentRepositories(String username, int days) throws IOException, InterruptedException {
-        String url = "https://api.github.com/users/" + username + "/events?per_page=100";
+        String url = apiUrl + "/users/" + username + "/events?per_page=100";
         
-        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/vnd.github+json")
-                .header("User-Agent", "X9-Chat-AI");
+        HttpRequest.Builder requestBuilder = newRequest(url)
+                .header("Accept", "application/vnd.github+json");
         
         // Use personal token for events API
         if (!personalGithubToken.isEmpty()) {
@@ -75,35 +211,55 @@ public class GitHubService {
         }
         
         HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<InputStream> response = send(request, "events");
         
-        if (response.statusCode() != 200) {
-            throw new IOException("GitHub API returned status: " + response.statusCode());
+        try (InputStream body = body(response)) {
+            if (response.statusCode() != 200) {
+                throw new IOException("GitHub API returned status: " + response.statusCode());
+            }
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                return parseRecentRepositories(parser, LocalDateTime.now().minusDays(days));
+            }
         }
-        
-        JsonNode events = objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Streams an events page, keeping the type, date and repository of each event and
+     * skipping the payloads, which make up most of the response.
+     */
+    List<String> parseRecentRepositories(JsonParser parser, LocalDateTime cutoffDate) throws IOException {
         List<String> repos = new ArrayList<>();
-        
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(days);
-        
-        for (JsonNode event : events) {
-            String eventType = event.get("type").asText();
-            String createdAt = event.get("created_at").asText();
-            
-            LocalDateTime eventDate = LocalDateTime.parse(createdAt, DateTimeFormatter.ISO_DATE_TIME);
-            if (eventDate.isBefore(cutoffDate)) {
-                continue;
-            }
-            
-            if ("PushEvent".equals(eventType) || "CreateEvent".equals(eventType)) {
-                JsonNode repo = event.get("repo");
-                if (repo != null) {
-                    String repoName = repo.get("name").asText();
-                    if (!repos.contains(repoName)) {
-                        repos.add(repoName);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            return repos;
+        }
+
+        while (nextObject(parser)) {
+            String eventType = null;
+            String createdAt = null;
+            String repoName = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "type" -> eventType = parser.getValueAsString();
+                    case "created_at" -> createdAt = parser.getValueAsString();
+                    case "repo" -> {
+                        if (value == JsonToken.START_OBJECT) {
+                            repoName = readStringField(parser, "name");
+                        }
                     }
+                    default -> parser.skipChildren();
                 }
             }
+
+            if (createdAt == null || repoName == null
+                    || !("PushEvent".equals(eventType) || "CreateEvent".equals(eventType))) {
+                continue;
+            }
+            LocalDateTime eventDate = LocalDateTime.parse(createdAt, DateTimeFormatter.ISO_DATE_TIME);
+            if (!eventDate.isBefore(cutoffDate) && !repos.contains(repoName)) {
+                repos.add(repoName);
+            }
         }
         
         return repos;
@@ -115,13 +271,11 @@ public class GitHubService {
         LocalDateTime since = LocalDateTime.now().minusDays(days);
         String sinceParam = since.format(DateTimeFormatter.ISO_DATE_TIME);
         
-        String url = String.format("https://api.github.com/repos/%s/commits?author=%s&since=%s&per_page=100",
-                repoFullName, username, sinceParam);
+        String url = String.format("%s/repos/%s/commits?author=%s&since=%s&per_page=100",
+                apiUrl, repoFullName, username, sinceParam);
         
-        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/vnd.github+json")
-                .header("User-Agent", "X9-Chat-AI");
+        HttpRequest.Builder requestBuilder = newRequest(url)
+                .header("Accept", "application/vnd.github+json");
         
         // Use personal token for commit data
         if (!personalGithubToken.isEmpty()) {
@@ -129,39 +283,109 @@ public class GitHubService {
         }
         
         HttpRequest request = requestBuilder.build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<InputStream> response = send(request, "commits");
         
-        if (response.statusCode() != 200) {
-            System.out.println("Failed to fetch commits from " + repoFullName + ": " + response.statusCode());
-            return new ArrayList<>();
+        try (InputStream body = body(response)) {
+            if (response.statusCode() != 200) {
+                System.out.println("Failed to fetch commits from " + repoFullName + ": " + response.statusCode());
+                return new ArrayList<>();
+            }
+            try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                return parseCommits(parser, repoFullName);
+            }
         }
-        
-        JsonNode commits = objectMapper.readTree(response.body());
+    }
+
+    /**
+     * Streams a commits page straight into CommitData, skipping the file lists, parents
+     * and user objects that GitHub sends along with each commit.
+     */
+    List<CommitData> parseCommits(JsonParser parser, String repoName) throws IOException {
         List<CommitData> commitList = new ArrayList<>();
-        
-        for (JsonNode commit : commits) {
-            try {
-                CommitData commitData = parseCommitData(commit, repoFullName);
-                commitList.add(commitData);
-            } catch (Exception e) {
-                System.err.println("Error parsing commit data: " + e.getMessage());
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            return commitList;
+        }
+
+        while (nextObject(parser)) {
+            String sha = null;
+            String url = null;
+            String message = null;
+            String authorName = null;
+            String date = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("sha")) {
+                    sha = parser.getValueAsString();
+                } else if (field.equals("html_url")) {
+                    url = parser.getValueAsString();
+                } else if (field.equals("commit") && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String commitField = parser.currentName();
+                        JsonToken commitValue = parser.nextToken();
+                        if (commitField.equals("message")) {
+                            message = parser.getValueAsString();
+                        } else if (commitField.equals("author") && commitValue == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String authorField = parser.currentName();
+                                parser.nextToken();
+                                if (authorField.equals("name")) {
+                                    authorName = parser.getValueAsString();
+                                } else if (authorField.equals("date")) {
+                                    date = parser.getValueAsString();
+                                } else {
+                                    parser.skipChildren();
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (sha == null || message == null || authorName == null || date == null) {
+                System.err.println("Error parsing commit data: incomplete commit " + sha + " in " + repoName);
+                continue;
             }
+            commitList.add(new CommitData(sha, message, authorName, date, repoName, url));
         }
         
         return commitList;
     }
 
-    private CommitData parseCommitData(JsonNode commitNode, String repoName) {
-        JsonNode commit = commitNode.get("commit");
-        JsonNode author = commit.get("author");
-        
-        String sha = commitNode.get("sha").asText();
-        String message = commit.get("message").asText();
-        String authorName = author.get("name").asText();
-        String date = author.get("date").asText();
-        String url = commitNode.get("html_url").asText();
-        
-        return new CommitData(sha, message, authorName, date, repoName, url);
+    /**
+     * Moves to the next object element of the array the parser is in, stepping over nulls and
+     * other non-object elements rather than stopping at them. Returns false at the end of the array.
+     */
+    private static boolean nextObject(JsonParser parser) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Reads the named string field of the object the parser has just entered, skipping the rest.
+     */
+    private static String readStringField(JsonParser parser, String name) throws IOException {
+        String result = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (field.equals(name)) {
+                result = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
     }
 
     /**
@@ -258,15 +482,14 @@ public class GitHubService {
             
             // Choose GraphQL endpoint and token based on type
             String graphqlEndpoint = usePersonalToken 
-                ? "https://api.github.com/graphql"
+                ? apiUrl + "/graphql"
                 : (githubOrg != null && !githubOrg.isEmpty()) 
                     ? "https://github." + githubOrg + ".com/api/graphql"
-                    : "https://api.github.com/graphql"; // fallback to public if no org configured
+                    : apiUrl + "/graphql"; // fallback to public if no org configured
             
             String tokenToUse = usePersonalToken ? personalGithubToken : githubToken;
             
-            HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
-                    .uri(URI.create(graphqlEndpoint))
+            HttpRequest.Builder requestBuilder = newRequest(graphqlEndpoint)
                     .header("Content-Type", "application/json")
                     .POST(HttpRequest.BodyPublishers.ofString(requestJson));
             
@@ -275,17 +498,19 @@ public class GitHubService {
             }
             
             HttpRequest request = requestBuilder.build();
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<InputStream> response = send(request, "graphql");
             
-            if (response.statusCode() == 200) {
-                JsonNode jsonResponse = objectMapper.readTree(response.body());
-                JsonNode userData = jsonResponse.path("data").path("user");
-                
-                if (!userData.isMissingNode()) {
-                    return parseContributionData(userData, username);
+            try (InputStream body = body(response)) {
+                if (response.statusCode() == 200) {
+                    try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+                        ContributionData contributionData = parseContributionData(parser, username);
+                        if (contributionData != null) {
+                            return contributionData;
+                        }
+                    }
+                } else {
+                    System.err.println("GraphQL request failed for " + username + ": " + response.statusCode());
                 }
-            } else {
-                System.err.println("GraphQL request failed for " + username + ": " + response.statusCode());
             }
             
         } catch (Exception e) {
@@ -295,21 +520,19 @@ public class GitHubService {
         return new ContributionData(username, 0, new ArrayList<>(), new ArrayList<>());
     }
     
-    private ContributionData parseContributionData(JsonNode userData, String username) {
+    ContributionData parseContributionData(JsonNode userData, String username) {
         JsonNode contributionsCollection = userData.path("contributionsCollection");
         JsonNode contributionCalendar = contributionsCollection.path("contributionCalendar");
+        ContributionTotals totals = new ContributionTotals();
         
-        int totalContributions = contributionCalendar.path("totalContributions").asInt();
-        int restrictedContributions = contributionsCollection.path("restrictedContributionsCount").asInt();
+        totals.totalContributions = contributionCalendar.path("totalContributions").asInt();
+        totals.restrictedContributions = contributionsCollection.path("restrictedContributionsCount").asInt();
         
         // Extract detailed contribution metrics for better LLama understanding
-        int totalCommits = contributionsCollection.path("totalCommitContributions").asInt();
-        int totalIssues = contributionsCollection.path("totalIssueContributions").asInt();
-        int totalPRs = contributionsCollection.path("totalPullRequestContributions").asInt();
-        int totalReviews = contributionsCollection.path("totalPullRequestReviewContributions").asInt();
-        
-        List<DailyContribution> dailyContributions = new ArrayList<>();
-        List<String> insights = new ArrayList<>();
+        totals.totalCommits = contributionsCollection.path("totalCommitContributions").asInt();
+        totals.totalIssues = contributionsCollection.path("totalIssueContributions").asInt();
+        totals.totalPRs = contributionsCollection.path("totalPullRequestContributions").asInt();
+        totals.totalReviews = contributionsCollection.path("totalPullRequestReviewContributions").asInt();
         
         // Parse weekly contribution data with enhanced context
         JsonNode weeks = contributionCalendar.path("weeks");
@@ -321,11 +544,169 @@ public class GitHubService {
                         String date = day.path("date").asText();
                         int count = day.path("contributionCount").asInt();
                         int weekday = day.path("weekday").asInt(0);
-                        dailyContributions.add(new DailyContribution(date, count, weekday));
+                        totals.dailyContributions.add(new DailyContribution(date, count, weekday));
+                    }
+                }
+            }
+        }
+        
+        JsonNode repositories = userData.path("repositories").path("nodes");
+        if (repositories.isArray()) {
+            for (JsonNode repo : repositories) {
+                totals.repositoryNames.add(repo.path("name").asText());
+                
+                JsonNode primaryLang = repo.path("primaryLanguage");
+                if (primaryLang.isObject()) {
+                    totals.primaryLanguages.add(primaryLang.path("name").asText());
+                }
+            }
+        }
+        
+        return summarize(totals, username);
+    }
+    
+    /**
+     * Streams a whole GraphQL contributions response, mapping calendar days straight into
+     * DailyContribution without building a tree. Returns null when the response has no user.
+     */
+    ContributionData parseContributionData(JsonParser parser, String username) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        ContributionTotals totals = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("data") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String dataField = parser.currentName();
+                    JsonToken dataValue = parser.nextToken();
+                    if (dataField.equals("user") && dataValue == JsonToken.START_OBJECT) {
+                        totals = new ContributionTotals();
+                        readUser(parser, totals);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return totals != null ? summarize(totals, username) : null;
+    }
+    
+    private void readUser(JsonParser parser, ContributionTotals totals) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("contributionsCollection") && value == JsonToken.START_OBJECT) {
+                readContributionsCollection(parser, totals);
+            } else if (field.equals("repositories") && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String repositoriesField = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && repositoriesField.equals("nodes")) {
+                        while (nextObject(parser)) {
+                            readRepository(parser, totals);
+                        }
+                    } else {
+                        parser.skipChildren();
                     }
                 }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private void readContributionsCollection(JsonParser parser, ContributionTotals totals) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "totalCommitContributions" -> totals.totalCommits = parser.getValueAsInt();
+                case "totalIssueContributions" -> totals.totalIssues = parser.getValueAsInt();
+                case "totalPullRequestContributions" -> totals.totalPRs = parser.getValueAsInt();
+                case "totalPullRequestReviewContributions" -> totals.totalReviews = parser.getValueAsInt();
+                case "restrictedContributionsCount" -> totals.restrictedContributions = parser.getValueAsInt();
+                case "contributionCalendar" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        readContributionCalendar(parser, totals);
+                    }
+                }
+                // commitContributionsByRepository is requested but not used in the summary
+                default -> parser.skipChildren();
+            }
+        }
+    }
+    
+    private void readContributionCalendar(JsonParser parser, ContributionTotals totals) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("totalContributions")) {
+                totals.totalContributions = parser.getValueAsInt();
+            } else if (field.equals("weeks") && value == JsonToken.START_ARRAY) {
+                while (nextObject(parser)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String weekField = parser.currentName();
+                        if (parser.nextToken() == JsonToken.START_ARRAY && weekField.equals("contributionDays")) {
+                            while (nextObject(parser)) {
+                                totals.dailyContributions.add(readContributionDay(parser));
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+    
+    private static DailyContribution readContributionDay(JsonParser parser) throws IOException {
+        String date = "";
+        int count = 0;
+        int weekday = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "date" -> date = parser.getValueAsString("");
+                case "contributionCount" -> count = parser.getValueAsInt();
+                case "weekday" -> weekday = parser.getValueAsInt();
+                default -> parser.skipChildren();
+            }
+        }
+        return new DailyContribution(date, count, weekday);
+    }
+    
+    private static void readRepository(JsonParser parser, ContributionTotals totals) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (field.equals("name")) {
+                totals.repositoryNames.add(parser.getValueAsString(""));
+            } else if (field.equals("primaryLanguage") && value == JsonToken.START_OBJECT) {
+                String language = readStringField(parser, "name");
+                if (language != null) {
+                    totals.primaryLanguages.add(language);
+                }
+            } else {
+                parser.skipChildren();
             }
         }
+    }
+    
+    private ContributionData summarize(ContributionTotals totals, String username) {
+        int totalContributions = totals.totalContributions;
+        int restrictedContributions = totals.restrictedContributions;
+        int totalCommits = totals.totalCommits;
+        int totalIssues = totals.totalIssues;
+        int totalPRs = totals.totalPRs;
+        int totalReviews = totals.totalReviews;
+        List<DailyContribution> dailyContributions = totals.dailyContributions;
+        List<String> insights = new ArrayList<>();
         
         // Enhanced insights for LLama with year-to-date context
         LocalDateTime startOfYear = LocalDateTime.now().withDayOfYear(1);
@@ -340,21 +721,10 @@ public class GitHubService {
         }
         
         // Repository and language analysis
-        JsonNode repositories = userData.path("repositories").path("nodes");
         Map<String, Integer> languageStats = new HashMap<>();
-        List<String> activeRepos = new ArrayList<>();
-        
-        if (repositories.isArray()) {
-            for (JsonNode repo : repositories) {
-                String repoName = repo.path("name").asText();
-                activeRepos.add(repoName);
-                
-                JsonNode primaryLang = repo.path("primaryLanguage");
-                if (!primaryLang.isMissingNode()) {
-                    String language = primaryLang.path("name").asText();
-                    languageStats.put(language, languageStats.getOrDefault(language, 0) + 1);
-                }
-            }
+        List<String> activeRepos = totals.repositoryNames;
+        for (String language : totals.primaryLanguages) {
+            languageStats.put(language, languageStats.getOrDefault(language, 0) + 1);
         }
         
         if (!languageStats.isEmpty()) {
@@ -406,7 +776,7 @@ public class GitHubService {
         return new ContributionData(username, totalContributions, dailyContributions, insights);
     }
     
-    private int calculateCurrentStreak(List<DailyContribution> contributions) {
+    int calculateCurrentStreak(List<DailyContribution> contributions) {
         if (contributions.isEmpty()) return 0;
         
         int streak = 0;
@@ -421,7 +791,7 @@ public class GitHubService {
         return streak;
     }
     
-    private int calculateLongestStreak(List<DailyContribution> contributions) {
+    int calculateLongestStreak(List<DailyContribution> contributions) {
         if (contributions.isEmpty()) return 0;
         
         int longestStreak = 0;
@@ -438,7 +808,7 @@ public class GitHubService {
         return longestStreak;
     }
     
-    private Map<String, Integer> analyzeWeeklyPattern(List<DailyContribution> contributions) {
+    Map<String, Integer> analyzeWeeklyPattern(List<DailyContribution> contributions) {
         Map<String, Integer> weeklyPattern = new HashMap<>();
         String[] dayNames = {"Sunday", "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday"};
         
@@ -460,7 +830,7 @@ public class GitHubService {
         return weeklyPattern;
     }
     
-    private String analyzeTrend(List<DailyContribution> contributions) {
+    String analyzeTrend(List<DailyContribution> contributions) {
         if (contributions.size() < 14) return "insufficient data";
         
         // Compare last 7 days with previous 7 days
@@ -478,6 +848,21 @@ public class GitHubService {
         }
     }
     
+    /**
+     * Raw figures read from a contributions response, by either the tree or the streaming parser.
+     */
+    private static class ContributionTotals {
+        int totalContributions;
+        int restrictedContributions;
+        int totalCommits;
+        int totalIssues;
+        int totalPRs;
+        int totalReviews;
+        final List<DailyContribution> dailyContributions = new ArrayList<>();
+        final List<String> repositoryNames = new ArrayList<>();
+        final List<String> primaryLanguages = new ArrayList<>();
+    }
+    
     // Data classes for GraphQL response
     public static class ContributionData {
         private final String username;
@@ -0,0 +1,55 @@
+package com.x9chat.service;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Runs the document and batch embedding calls made by ingestion through a CircuitBreaker, so a
+ * hung Ollama fails the file being ingested after the deadline instead of stalling the ingestion
+ * thread, and a model that keeps failing is skipped until the breaker lets a trial call through.
+ *
+ * Single-text calls are left alone: they embed search queries, which X9ChatService already
+ * guards with its own, shorter deadline.
+ */
+public class GuardedEmbeddingModel implements EmbeddingModel {
+
+    private final EmbeddingModel delegate;
+    private final CircuitBreaker breaker;
+    private final Duration deadline;
+
+    public GuardedEmbeddingModel(EmbeddingModel delegate, CircuitBreaker breaker, Duration deadline) {
+        this.delegate = delegate;
+        this.breaker = breaker;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        return delegate.embed(text);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return breaker.call(() -> delegate.embed(document), deadline);
+    }
+
+    @Override
+    public List<float[]> embed(List<String> texts) {
+        return breaker.call(() -> delegate.embed(texts), deadline);
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        return breaker.call(() -> delegate.call(request), deadline);
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+}
@@ -0,0 +1,17 @@
+package com.x9chat.service;
+
+/**
+ * Thrown when a model call missed its deadline, failed, or was refused by an open CircuitBreaker.
+ */
+public class ModelUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ModelUnavailableException(String message) {
+        super(message);
+    }
+
+    public ModelUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
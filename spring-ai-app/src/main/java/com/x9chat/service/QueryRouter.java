@@ -0,0 +1,115 @@
+package com.x9chat.service;
+
+import com.x9chat.metrics.IndexStatistics;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Decides how much machinery a question needs, using keyword heuristics that cost
+ * microseconds.
+ *
+ * METADATA questions (when was a user's last 1:1, how many notes do they have, who is on
+ * the team) are answered from IndexStatistics without a search or a model call. LOOKUP
+ * questions are short factual ones and go to a small model with a short prompt. Anything
+ * about feelings, trends or advice is ANALYSIS and keeps the large model and full prompt;
+ * so does anything the heuristics are unsure about.
+ */
+@Component
+public class QueryRouter {
+
+    public enum Route { METADATA, LOOKUP, ANALYSIS }
+
+    // Any of these means the question needs interpretation, not a fact
+    private static final Pattern ANALYSIS_TERMS = Pattern.compile("\\b(feel\\w*|mood|morale|sentiment|stress\\w*|burn\\w*"
+            + "|happy|unhappy|motivat\\w*|engag\\w*|well-?being|support|why|trend\\w*|compare|overall|analy\\w*|insight\\w*"
+            + "|concern\\w*|worr\\w*|risk\\w*|improve\\w*|advice|advise|recommend\\w*|summar\\w*|doing|going)\\b");
+    private static final Pattern LOOKUP_START = Pattern.compile("^(when|what date|which|who|where|how many|how often|list"
+            + "|show|did|does|do|is there|are there|has|have)\\b");
+    private static final int LOOKUP_MAX_WORDS = 14;
+
+    private static final String MEETING_NOUN = "(1:1s?|1on1s?|one-on-ones?|meetings?|notes?|check-ins?)";
+    // "When did alice last mention the deadline in her notes?" asks about content, so it is left to the model
+    private static final String NOT_ABOUT_CONTENT = "(?!.*\\b(about|mention\\w*|that|where|with the|discuss\\w*|bring up|brought up)\\b)";
+    private static final Pattern MEETING = Pattern.compile("\\b" + MEETING_NOUN + "\\b");
+    // The meeting noun has to follow last/first, at most one word apart ("last 1:1", "first team meeting")
+    private static final Pattern LAST_MEETING = Pattern.compile("^(when|what date)\\b" + NOT_ABOUT_CONTENT
+            + ".*\\b(last|latest|most recent) (\\S+ )?" + MEETING_NOUN + "\\b");
+    private static final Pattern FIRST_MEETING = Pattern.compile("^(when|what date)\\b" + NOT_ABOUT_CONTENT
+            + ".*\\b(first|earliest) (\\S+ )?" + MEETING_NOUN + "\\b");
+    private static final Pattern MEETING_COUNT = Pattern.compile("^how many " + MEETING_NOUN + "\\b" + NOT_ABOUT_CONTENT);
+    private static final Pattern TEAM_MEMBERS = Pattern.compile("^(who is on|who's on|who are|list|how many)\\b"
+            + NOT_ABOUT_CONTENT + ".*\\b(team|members?|people)\\b");
+
+    // Compiled once per username rather than once per question
+    private final Map<String, Pattern> userPatterns = new ConcurrentHashMap<>();
+    private final IndexStatistics indexStatistics;
+
+    public QueryRouter(IndexStatistics indexStatistics) {
+        this.indexStatistics = indexStatistics;
+    }
+
+    public Decision route(String question) {
+        String text = X9ChatService.normalize(question);
+        if (ANALYSIS_TERMS.matcher(text).find()) {
+            return new Decision(Route.ANALYSIS, null);
+        }
+        Optional<String> answer = answerFromMetadata(text);
+        if (answer.isPresent()) {
+            return new Decision(Route.METADATA, answer.get());
+        }
+        if (LOOKUP_START.matcher(text).find() && text.split(" ").length <= LOOKUP_MAX_WORDS) {
+            return new Decision(Route.LOOKUP, null);
+        }
+        return new Decision(Route.ANALYSIS, null);
+    }
+
+    private Optional<String> answerFromMetadata(String text) {
+        Set<String> users = indexStatistics.getChunksByUser().keySet();
+        List<String> mentioned = users.stream()
+            .filter(user -> userPatterns.computeIfAbsent(user,
+                key -> Pattern.compile("\\b" + Pattern.quote(key.toLowerCase(Locale.ROOT)) + "\\b")).matcher(text).find())
+            .toList();
+
+        if (mentioned.size() == 1 && MEETING.matcher(text).find()) {
+            String user = mentioned.get(0);
+            if (LAST_MEETING.matcher(text).find()) {
+                return indexStatistics.getLatestNoteDate(user)
+                    .map(date -> "The most recent notes for " + user + " are dated " + date + ".");
+            }
+            if (FIRST_MEETING.matcher(text).find()) {
+                return indexStatistics.getFirstNoteDate(user)
+                    .map(date -> "The earliest notes for " + user + " are dated " + date + ".");
+            }
+            if (MEETING_COUNT.matcher(text).find()) {
+                int count = indexStatistics.getNoteCount(user);
+                Optional<LocalDate> first = indexStatistics.getFirstNoteDate(user);
+                Optional<LocalDate> last = indexStatistics.getLatestNoteDate(user);
+                if (count == 0 || first.isEmpty()) {
+                    return Optional.of("There are no dated notes for " + user + ".");
+                }
+                return Optional.of(user + " has " + count + " dated note" + (count == 1 ? "" : "s")
+                    + (count == 1 ? ", from " + first.get() : ", from " + first.get() + " to " + last.get()) + ".");
+            }
+        }
+        if (mentioned.isEmpty() && TEAM_MEMBERS.matcher(text).find() && !users.isEmpty()) {
+            List<String> members = users.stream().filter(user -> !user.equals("unknown")).sorted().toList();
+            return Optional.of("The team notes cover " + members.size() + " member" + (members.size() == 1 ? "" : "s")
+                + ": " + String.join(", ", members) + ".");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Where a question goes; answer is set when the METADATA route already produced it.
+     */
+    public record Decision(Route route, String answer) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.x9chat.service;
+
+/**
+ * Thrown when a conditional reinforcement change was based on a stale revision of the user's document.
+ */
+public class ReinforcementConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final long expectedRevision;
+    private final long currentRevision;
+
+    public ReinforcementConflictException(String username, long expectedRevision, long currentRevision) {
+        super("Reinforcements for " + username + " are at revision " + currentRevision
+                + ", but the change was based on revision " + expectedRevision);
+        this.username = username;
+        this.expectedRevision = expectedRevision;
+        this.currentRevision = currentRevision;
+    }
+
+    public String getUsername() { return username; }
+    public long getExpectedRevision() { return expectedRevision; }
+    public long getCurrentRevision() { return currentRevision; }
+}
@@ -0,0 +1,128 @@
+package com.x9chat.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.x9chat.ingestion.StructureAwareSplitter;
+import com.x9chat.metrics.IndexStatistics;
+import com.x9chat.service.ReinforcementService.UserReinforcements;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps each user's reinforcement chunks in the vector store in step with ReinforcementService.
+ *
+ * The chunk IDs embedded for every user are remembered, so a change only deletes and
+ * re-embeds that user's reinforcement document instead of reloading the whole store.
+ * Changes are debounced per user, so a burst of edits is embedded once.
+ */
+@Service
+public class ReinforcementIndexer {
+
+    private static final String REINFORCEMENTS_FILE = "reinforcements.json";
+
+    @Value("${app.documents.path:../public}")
+    private String documentsPath;
+
+    @Value("${app.reinforcements.reindex-delay-ms:2000}")
+    private long reindexDelayMs;
+
+    private final VectorStore vectorStore;
+    private final ReinforcementService reinforcementService;
+    private final StructureAwareSplitter splitter;
+    private final IndexStatistics indexStatistics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ConcurrentMap<String, List<String>> chunkIds = new ConcurrentHashMap<>();
+    private final Set<String> pendingUsers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reinforcement-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReinforcementIndexer(VectorStore vectorStore, ReinforcementService reinforcementService,
+                                StructureAwareSplitter splitter, IndexStatistics indexStatistics) {
+        this.vectorStore = vectorStore;
+        this.reinforcementService = reinforcementService;
+        this.splitter = splitter;
+        this.indexStatistics = indexStatistics;
+    }
+
+    /**
+     * Records the chunks embedded for a user's reinforcements by document ingestion and returns
+     * the ones they replace, for the caller to delete. Those can be from an earlier ingestion
+     * or from an edit re-embedded here since, which ingestion does not know about.
+     */
+    public List<String> replace(String username, List<String> ids) {
+        List<String> previous = chunkIds.put(username, List.copyOf(ids));
+        return previous != null ? previous : List.of();
+    }
+
+    /**
+     * Forgets chunks that were deleted by someone else, e.g. when reinforcements.json is re-ingested.
+     */
+    public void untrack(String username, List<String> ids) {
+        Set<String> removed = Set.copyOf(ids);
+        chunkIds.computeIfPresent(username, (user, existing) -> {
+            List<String> remaining = existing.stream().filter(id -> !removed.contains(id)).toList();
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    @EventListener
+    public void onReinforcementsChanged(ReinforcementsChangedEvent event) {
+        if (pendingUsers.add(event.username()) && !executor.isShutdown()) {
+            executor.schedule(() -> reindex(event.username()), reindexDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void reindex(String username) {
+        pendingUsers.remove(username);
+        try {
+            UserReinforcements reinforcements = reinforcementService.getUserReinforcements(username);
+            String content = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(reinforcements);
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("source", REINFORCEMENTS_FILE);
+            metadata.put("username", username);
+            metadata.put("type", "reinforcements");
+            metadata.put("filepath", Paths.get(documentsPath, username, REINFORCEMENTS_FILE).toString());
+
+            List<Document> chunks = splitter.split(new Document(content, metadata));
+
+            // Add before deleting so the user is never missing from search results
+            vectorStore.add(chunks);
+            indexStatistics.recordEmbeddingsComputed(chunks.size());
+            indexStatistics.recordAdded(chunks);
+            List<String> previous = chunkIds.put(username, chunks.stream().map(Document::getId).toList());
+            if (previous != null && !previous.isEmpty()) {
+                vectorStore.delete(previous);
+                indexStatistics.recordRemoved(previous);
+            }
+
+            System.out.println("Re-embedded " + chunks.size() + " reinforcement chunks for user: " + username
+                    + " (revision " + reinforcements.getRevision() + ")");
+        } catch (Exception e) {
+            System.err.println("Error re-embedding reinforcements for " + username + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,191 @@
+package com.x9chat.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.x9chat.service.ReinforcementService.Reinforcement;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of reinforcement changes for a single user.
+ *
+ * Every change is written as one JSON line. Entries carry the full record (or the ID for
+ * deletes), so replaying them on top of a snapshot is idempotent: a crash between writing
+ * a compacted snapshot and truncating the journal only replays changes already applied.
+ * A torn final line from a crash mid-append is cut off on replay.
+ */
+class ReinforcementJournal implements Closeable {
+
+    static final String JOURNAL_FILE = "reinforcements.journal";
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private FileChannel channel;
+    private int entryCount;
+
+    ReinforcementJournal(Path file, ObjectMapper objectMapper, boolean fsync) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    void append(Entry entry) throws IOException {
+        byte[] line = objectMapper.writeValueAsBytes(entry);
+        ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+
+        FileChannel channel = channel();
+        long start = channel.size();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            // The caller treats the change as not made, so take back whatever part of it was written
+            try {
+                channel.truncate(start);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        entryCount++;
+    }
+
+    /**
+     * Reads every complete entry currently in the journal, in append order.
+     */
+    List<Entry> replay() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            entryCount = 0;
+            return entries;
+        }
+
+        truncateTornLine();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    entries.add(objectMapper.readValue(line, Entry.class));
+                } catch (IOException e) {
+                    System.err.println("Skipping unreadable journal entry in " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        entryCount = entries.size();
+        return entries;
+    }
+
+    /**
+     * Discards all entries. Callers must have persisted a snapshot that includes them first.
+     */
+    void truncate() throws IOException {
+        if (channel == null && !Files.exists(file)) {
+            entryCount = 0;
+            return;
+        }
+        FileChannel channel = channel();
+        channel.truncate(0);
+        channel.force(true);
+        entryCount = 0;
+    }
+
+    boolean exists() {
+        return Files.exists(file);
+    }
+
+    int size() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    // A crash mid-append can leave a final line without its newline. It is cut off, or the next
+    // append would be glued onto the fragment and lost with it on the following replay.
+    private void truncateTornLine() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            scan:
+            while (end > 0) {
+                int length = (int) Math.min(buffer.capacity(), end);
+                buffer.clear().limit(length);
+                while (buffer.hasRemaining()) {
+                    channel.read(buffer, end - length + buffer.position());
+                }
+                for (int i = length - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        end = end - length + i + 1;
+                        break scan;
+                    }
+                }
+                end -= length;
+            }
+            if (end < size) {
+                System.err.println("Dropping torn final line (" + (size - end) + " bytes) of " + file);
+                channel.truncate(end);
+                channel.force(false);
+            }
+        }
+    }
+
+    enum Operation { PUT, DELETE, REPLACE_ALL, BATCH }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Entry(Operation op, Integer id, Reinforcement reinforcement, List<Reinforcement> reinforcements,
+                 List<Integer> deletedIds, String date, Long revision) {
+
+        static Entry put(Reinforcement reinforcement, String date) {
+            return new Entry(Operation.PUT, reinforcement.getId(), reinforcement, null, null, date, null);
+        }
+
+        static Entry delete(int id, String date) {
+            return new Entry(Operation.DELETE, id, null, null, null, date, null);
+        }
+
+        static Entry replaceAll(List<Reinforcement> reinforcements, String date) {
+            return new Entry(Operation.REPLACE_ALL, null, null, reinforcements, null, date, null);
+        }
+
+        // Puts are applied before deletes on replay
+        static Entry batch(List<Reinforcement> reinforcements, List<Integer> deletedIds, String date) {
+            return new Entry(Operation.BATCH, null, null, reinforcements, deletedIds, date, null);
+        }
+
+        Entry withRevision(long revision) {
+            return new Entry(op, id, reinforcement, reinforcements, deletedIds, date, revision);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.x9chat.service;
+
+/**
+ * Thrown when an update or delete names a reinforcement the user's document does not contain.
+ * The check is made under the document lock, so it holds for the change that follows.
+ */
+public class ReinforcementNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String username;
+    private final int reinforcementId;
+
+    public ReinforcementNotFoundException(String username, int reinforcementId) {
+        super("Reinforcement " + reinforcementId + " not found for user: " + username);
+        this.username = username;
+        this.reinforcementId = reinforcementId;
+    }
+
+    public String getUsername() { return username; }
+    public int getReinforcementId() { return reinforcementId; }
+}
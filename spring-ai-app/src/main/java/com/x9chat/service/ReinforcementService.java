@@ -1,27 +1,120 @@
 package com.x9chat.service;
 
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.x9chat.service.ReinforcementJournal.Entry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
+/**
+ * Reinforcement storage backed by an in-memory cache of typed records.
+ *
+ * Each user's reinforcements.json is parsed once and kept indexed by ID. Reads are
+ * validated against the file's modification time and size, so edits made by other
+ * processes (e.g. the Express server) invalidate the cached copy. Writes only touch
+ * the cache and are coalesced to disk by a write-behind flusher, which replaces the
+ * file atomically through a temp file rename.
+ *
+ * With app.reinforcements.storage=journal, each change is instead appended to a per-user
+ * reinforcements.journal and reinforcements.json becomes a periodically compacted snapshot.
+ * Loading a user replays the journal tail on top of the snapshot.
+ *
+ * Every change publishes a {@link ReinforcementsChangedEvent} once the user's lock is released.
+ */
 @Service
 public class ReinforcementService {
 
+    private static final String REINFORCEMENTS_FILE = "reinforcements.json";
+    private static final String DEFAULT_VERSION = "1.0";
+
     @Value("${app.documents.path:../public}")
     private String documentsPath;
 
+    @Value("${app.reinforcements.flush-delay-ms:500}")
+    private long flushDelayMs;
+
+    // "snapshot" rewrites reinforcements.json, "journal" appends to reinforcements.journal
+    @Value("${app.reinforcements.storage:snapshot}")
+    private String storageMode;
+
+    @Value("${app.reinforcements.journal.compact-threshold:500}")
+    private int compactThreshold;
+
+    @Value("${app.reinforcements.journal.compact-interval-ms:60000}")
+    private long compactIntervalMs;
+
+    @Value("${app.reinforcements.journal.fsync:true}")
+    private boolean journalFsync;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter prettyWriter = objectMapper.writerWithDefaultPrettyPrinter();
+
+    // One holder per user, never replaced, so its monitor doubles as the per-user lock
+    private final ConcurrentMap<String, UserDocument> documents = new ConcurrentHashMap<>();
+    private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledThreadPoolExecutor flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "reinforcement-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile UserListing userListing;
+
+    public ReinforcementService(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        // Shutdown drops a pending delayed flush instead of waiting it out, then flushes itself
+        flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isJournalMode()) {
+            return;
+        }
+
+        // Fold journals left behind by a previous run into their snapshots
+        for (String username : getAllUsers()) {
+            if (Files.exists(getUserJournalFile(username))) {
+                UserDocument document = document(username);
+                synchronized (document) {
+                    refresh(document);
+                    compact(document);
+                }
+            }
+        }
+        flusher.scheduleWithFixedDelay(this::compactAll, compactIntervalMs, compactIntervalMs, TimeUnit.MILLISECONDS);
+    }
 
     public List<String> getAllUsers() throws IOException {
         Path documentsDir = Paths.get(documentsPath);
@@ -29,6 +122,375 @@ public class ReinforcementService {
             return Collections.emptyList();
         }
 
+        // The directory's mtime changes whenever a user directory is added or removed
+        FileTime modified = Files.getLastModifiedTime(documentsDir);
+        UserListing listing = userListing;
+        if (listing == null || !listing.modified.equals(modified)) {
+            listing = new UserListing(modified, listUserDirectories(documentsDir));
+            userListing = listing;
+        }
+
+        if (dirtyUsers.isEmpty()) {
+            return listing.users;
+        }
+
+        // Users created in the cache but not flushed yet have no directory on disk
+        List<String> users = new ArrayList<>(listing.users);
+        for (String username : dirtyUsers) {
+            if (!users.contains(username)) {
+                users.add(username);
+            }
+        }
+        return users;
+    }
+
+    public UserReinforcements getUserReinforcements(String username) throws IOException {
+        UserDocument document = document(username);
+        synchronized (document) {
+            refresh(document);
+            return document.toUserReinforcements();
+        }
+    }
+
+    /**
+     * Whether the user has a reinforcements document, on disk or waiting to be flushed. Reading a
+     * user without one returns an empty document but does not create it.
+     */
+    public boolean hasReinforcements(String username) throws IOException {
+        UserDocument document = documents.get(username);
+        if (document == null) {
+            return Files.exists(getUserReinforcementFile(username))
+                    || (isJournalMode() && Files.exists(getUserJournalFile(username)));
+        }
+        synchronized (document) {
+            refresh(document);
+            return document.dirty || document.diskModified != null
+                    || (document.journal != null && document.journal.exists());
+        }
+    }
+
+    public Optional<Reinforcement> getReinforcement(String username, int reinforcementId) throws IOException {
+        UserDocument document = document(username);
+        synchronized (document) {
+            refresh(document);
+            return Optional.ofNullable(document.entries.get(reinforcementId));
+        }
+    }
+
+    public UserReinforcements saveUserReinforcements(String username, List<Reinforcement> reinforcements) throws IOException {
+        return saveUserReinforcements(username, reinforcements, null);
+    }
+
+    public UserReinforcements saveUserReinforcements(String username, List<Reinforcement> reinforcements, Long expectedRevision) throws IOException {
+        return mutate(username, expectedRevision, document -> Entry.replaceAll(reinforcements, today()));
+    }
+
+    public UserReinforcements addReinforcement(String username, Reinforcement reinforcement) throws IOException {
+        return addReinforcement(username, reinforcement, null);
+    }
+
+    public UserReinforcements addReinforcement(String username, Reinforcement reinforcement, Long expectedRevision) throws IOException {
+        return mutate(username, expectedRevision, document ->
+                Entry.put(reinforcement.withIdentity(document.maxId + 1, today()), today()));
+    }
+
+    public UserReinforcements updateReinforcement(String username, int reinforcementId, Reinforcement updatedReinforcement) throws IOException {
+        return updateReinforcement(username, reinforcementId, updatedReinforcement, null);
+    }
+
+    public UserReinforcements updateReinforcement(String username, int reinforcementId, Reinforcement updatedReinforcement,
+                                                  Long expectedRevision) throws IOException {
+        return mutate(username, expectedRevision, document -> {
+            Reinforcement existing = document.entries.get(reinforcementId);
+            if (existing == null) {
+                throw new ReinforcementNotFoundException(username, reinforcementId);
+            }
+            // Preserve dateAdded if not provided
+            String dateAdded = updatedReinforcement.getDateAdded() != null
+                    ? updatedReinforcement.getDateAdded()
+                    : existing.getDateAdded();
+            return Entry.put(updatedReinforcement.withIdentity(reinforcementId, dateAdded), today());
+        });
+    }
+
+    public UserReinforcements deleteReinforcement(String username, int reinforcementId) throws IOException {
+        return deleteReinforcement(username, reinforcementId, null);
+    }
+
+    public UserReinforcements deleteReinforcement(String username, int reinforcementId, Long expectedRevision) throws IOException {
+        return mutate(username, expectedRevision, document -> {
+            if (!document.entries.containsKey(reinforcementId)) {
+                throw new ReinforcementNotFoundException(username, reinforcementId);
+            }
+            return Entry.delete(reinforcementId, today());
+        });
+    }
+
+    /**
+     * Applies several upserts and deletes for one user as a single change, so the document is
+     * persisted (and re-embedded) once. Upserts with an ID that exists replace that record,
+     * keeping its dateAdded when none is given; all others are added with a fresh ID.
+     */
+    public UserReinforcements applyBulk(String username, List<Reinforcement> upserts, List<Integer> deleteIds,
+                                        Long expectedRevision) throws IOException {
+        return mutate(username, expectedRevision, document -> {
+            Map<Integer, Reinforcement> written = new LinkedHashMap<>();
+            int maxId = document.maxId;
+            for (Reinforcement upsert : upserts) {
+                Reinforcement existing = written.containsKey(upsert.getId())
+                        ? written.get(upsert.getId()) : document.entries.get(upsert.getId());
+                Reinforcement stored = existing != null
+                        ? upsert.withIdentity(existing.getId(), upsert.getDateAdded() != null ? upsert.getDateAdded() : existing.getDateAdded())
+                        : upsert.withIdentity(++maxId, today());
+                written.put(stored.getId(), stored);
+            }
+
+            // Puts are applied before deletes, so a batch can delete a record it just wrote
+            List<Integer> deleted = new ArrayList<>();
+            for (Integer id : new LinkedHashSet<>(deleteIds)) {
+                if (document.entries.containsKey(id) || written.containsKey(id)) {
+                    deleted.add(id);
+                }
+            }
+            return written.isEmpty() && deleted.isEmpty() ? null : Entry.batch(List.copyOf(written.values()), deleted, today());
+        });
+    }
+
+    /**
+     * Writes every pending change to disk immediately instead of waiting for the flusher.
+     */
+    public void flush() {
+        for (String username : dirtyUsers) {
+            dirtyUsers.remove(username);
+            UserDocument document = documents.get(username);
+            if (document != null) {
+                flush(document);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (isJournalMode()) {
+            compactAll();
+        }
+        for (UserDocument document : documents.values()) {
+            synchronized (document) {
+                closeJournal(document);
+            }
+        }
+    }
+
+    /**
+     * Applies a change under the user's lock. The change only reads the document and returns the
+     * journal entry describing it, or null if nothing changed; the entry is journaled before it is
+     * applied, so a failed append leaves the cached document untouched. A non-null expectedRevision
+     * makes the change conditional: it is rejected with a {@link ReinforcementConflictException}
+     * unless it matches the current revision.
+     */
+    private UserReinforcements mutate(String username, Long expectedRevision, Function<UserDocument, Entry> change) throws IOException {
+        UserDocument document = document(username);
+        UserReinforcements result;
+        boolean changed;
+        synchronized (document) {
+            refresh(document);
+            if (expectedRevision != null && expectedRevision != document.revision) {
+                throw new ReinforcementConflictException(username, expectedRevision, document.revision);
+            }
+
+            Entry entry = change.apply(document);
+            changed = entry != null;
+            if (changed) {
+                recordChange(document, entry.withRevision(document.revision + 1));
+            }
+            result = document.toUserReinforcements();
+        }
+
+        if (changed) {
+            eventPublisher.publishEvent(new ReinforcementsChangedEvent(username, result.getRevision()));
+        }
+        return result;
+    }
+
+    private boolean isJournalMode() {
+        return "journal".equalsIgnoreCase(storageMode);
+    }
+
+    private UserDocument document(String username) {
+        return documents.computeIfAbsent(username, user -> new UserDocument(user, getUserReinforcementFile(user),
+                isJournalMode() ? new ReinforcementJournal(getUserJournalFile(user), objectMapper, journalFsync) : null));
+    }
+
+    /**
+     * Brings the cached document in line with the file on disk. Must hold the document's lock.
+     */
+    private void refresh(UserDocument document) throws IOException {
+        if (document.dirty) {
+            // Pending in-memory changes are newer than anything on disk
+            return;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(document.file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            attributes = null;
+        }
+
+        if (attributes == null && document.loaded && document.diskModified == null) {
+            // Still no snapshot, and the journal is only written through this cache: nothing changed
+            return;
+        }
+
+        // Any reload bumps the revision so clients holding the pre-reload revision get a conflict
+        long nextRevision = document.loaded ? document.revision + 1 : 0;
+
+        if (attributes == null) {
+            document.reset(DEFAULT_VERSION, today());
+            document.revision = nextRevision;
+            document.diskModified = null;
+            document.diskSize = -1;
+            // Nothing is written for a user without a snapshot until something changes
+            replayJournal(document);
+            return;
+        }
+
+        if (document.loaded
+                && attributes.lastModifiedTime().equals(document.diskModified)
+                && attributes.size() == document.diskSize) {
+            return;
+        }
+
+        UserReinforcements onDisk = objectMapper.readValue(document.file.toFile(), UserReinforcements.class);
+        document.reset(onDisk.getVersion(), onDisk.getLastUpdated());
+        document.revision = Math.max(onDisk.getRevision(), nextRevision);
+        for (Reinforcement reinforcement : onDisk.getReinforcements()) {
+            document.put(reinforcement);
+        }
+        document.diskModified = attributes.lastModifiedTime();
+        document.diskSize = attributes.size();
+        replayJournal(document);
+    }
+
+    /**
+     * Applies journal entries written since the last compaction. Returns false when there were none.
+     */
+    private boolean replayJournal(UserDocument document) throws IOException {
+        if (document.journal == null || !document.journal.exists()) {
+            return false;
+        }
+
+        List<Entry> entries = document.journal.replay();
+        for (Entry entry : entries) {
+            document.apply(entry);
+        }
+        return !entries.isEmpty();
+    }
+
+    private void recordChange(UserDocument document, Entry entry) throws IOException {
+        if (document.journal == null) {
+            document.apply(entry);
+            markDirty(document);
+            return;
+        }
+
+        document.journal.append(entry);
+        document.apply(entry);
+        // Compaction can fail or be skipped, so keep asking while the journal is over the threshold
+        if (document.journal.size() >= compactThreshold && !document.compactionQueued && !flusher.isShutdown()) {
+            document.compactionQueued = true;
+            flusher.execute(() -> {
+                synchronized (document) {
+                    document.compactionQueued = false;
+                    compact(document);
+                }
+            });
+        }
+    }
+
+    private void compactAll() {
+        for (UserDocument document : documents.values()) {
+            synchronized (document) {
+                compact(document);
+            }
+        }
+    }
+
+    /**
+     * Folds the journal into reinforcements.json. Must hold the document's lock.
+     */
+    private void compact(UserDocument document) {
+        if (document.journal == null || (document.journal.size() == 0 && !document.dirty)) {
+            return;
+        }
+        try {
+            writeSnapshot(document);
+            document.journal.truncate();
+        } catch (IOException e) {
+            System.err.println("Error compacting reinforcement journal for " + document.username + ": " + e.getMessage());
+        }
+    }
+
+    private void closeJournal(UserDocument document) {
+        if (document.journal == null) {
+            return;
+        }
+        try {
+            document.journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing reinforcement journal for " + document.username + ": " + e.getMessage());
+        }
+    }
+
+    private void markDirty(UserDocument document) {
+        document.lastUpdated = today();
+        document.dirty = true;
+        dirtyUsers.add(document.username);
+        if (!flusher.isShutdown() && flushScheduled.compareAndSet(false, true)) {
+            flusher.schedule(this::flushScheduled, flushDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushScheduled() {
+        flushScheduled.set(false);
+        flush();
+    }
+
+    private void flush(UserDocument document) {
+        synchronized (document) {
+            if (!document.dirty) {
+                return;
+            }
+            try {
+                writeSnapshot(document);
+            } catch (IOException e) {
+                System.err.println("Error writing reinforcements for " + document.username + ": " + e.getMessage());
+                // Keep the changes pending and retry on the next flush
+                markDirty(document);
+            }
+        }
+    }
+
+    private void writeSnapshot(UserDocument document) throws IOException {
+        Files.createDirectories(document.file.getParent());
+        Path tempFile = document.file.resolveSibling(REINFORCEMENTS_FILE + ".tmp");
+        prettyWriter.writeValue(tempFile.toFile(), document.toUserReinforcements());
+        Files.move(tempFile, document.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        BasicFileAttributes attributes = Files.readAttributes(document.file, BasicFileAttributes.class);
+        document.diskModified = attributes.lastModifiedTime();
+        document.diskSize = attributes.size();
+        document.dirty = false;
+    }
+
+    private List<String> listUserDirectories(Path documentsDir) throws IOException {
         List<String> users = new ArrayList<>();
         try (Stream<Path> userDirs = Files.list(documentsDir)) {
             userDirs.filter(Files::isDirectory)
@@ -39,98 +501,164 @@ public class ReinforcementService {
                        }
                    });
         }
-        return users;
+        return Collections.unmodifiableList(users);
+    }
+
+    private Path getUserReinforcementFile(String username) {
+        return Paths.get(documentsPath, username, REINFORCEMENTS_FILE);
     }
 
-    public Map<String, Object> getUserReinforcements(String username) throws IOException {
-        Path reinforcementFile = getUserReinforcementFile(username);
-        if (!Files.exists(reinforcementFile)) {
-            return createDefaultReinforcements(username);
-        }
-
-        return objectMapper.readValue(reinforcementFile.toFile(), Map.class);
-    }
-
-    public Map<String, Object> saveUserReinforcements(String username, Map<String, Object> reinforcements) throws IOException {
-        // Update lastUpdated timestamp
-        reinforcements.put("lastUpdated", LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE));
-        
-        Path reinforcementFile = getUserReinforcementFile(username);
-        Files.createDirectories(reinforcementFile.getParent());
-        
-        objectMapper.writerWithDefaultPrettyPrinter()
-                   .writeValue(reinforcementFile.toFile(), reinforcements);
-        
-        return reinforcements;
-    }
-
-    public Map<String, Object> addReinforcement(String username, Map<String, Object> reinforcement) throws IOException {
-        Map<String, Object> userReinforcements = getUserReinforcements(username);
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> reinforcementList = (List<Map<String, Object>>) userReinforcements.get("reinforcements");
-        
-        // Generate new ID
-        int maxId = reinforcementList.stream()
-                                   .mapToInt(r -> (Integer) r.getOrDefault("id", 0))
-                                   .max()
-                                   .orElse(0);
-        
-        reinforcement.put("id", maxId + 1);
-        reinforcement.put("dateAdded", LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE));
-        
-        reinforcementList.add(reinforcement);
-        
-        return saveUserReinforcements(username, userReinforcements);
-    }
-
-    public Map<String, Object> updateReinforcement(String username, int reinforcementId, Map<String, Object> updatedReinforcement) throws IOException {
-        Map<String, Object> userReinforcements = getUserReinforcements(username);
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> reinforcementList = (List<Map<String, Object>>) userReinforcements.get("reinforcements");
-        
-        for (int i = 0; i < reinforcementList.size(); i++) {
-            Map<String, Object> existing = reinforcementList.get(i);
-            if ((Integer) existing.get("id") == reinforcementId) {
-                updatedReinforcement.put("id", reinforcementId);
-                // Preserve dateAdded if not provided
-                if (!updatedReinforcement.containsKey("dateAdded")) {
-                    updatedReinforcement.put("dateAdded", existing.get("dateAdded"));
+    private Path getUserJournalFile(String username) {
+        return Paths.get(documentsPath, username, ReinforcementJournal.JOURNAL_FILE);
+    }
+
+    private static String today() {
+        return LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private record UserListing(FileTime modified, List<String> users) {
+    }
+
+    private static final class UserDocument {
+        private final String username;
+        private final Path file;
+        private final ReinforcementJournal journal;
+        private final LinkedHashMap<Integer, Reinforcement> entries = new LinkedHashMap<>();
+        private String version;
+        private String lastUpdated;
+        private int maxId;
+        private long revision;
+        private boolean loaded;
+        private boolean dirty;
+        private boolean compactionQueued;
+        private FileTime diskModified;
+        private long diskSize = -1;
+
+        private UserDocument(String username, Path file, ReinforcementJournal journal) {
+            this.username = username;
+            this.file = file;
+            this.journal = journal;
+        }
+
+        private void reset(String version, String lastUpdated) {
+            this.version = version != null ? version : DEFAULT_VERSION;
+            this.lastUpdated = lastUpdated;
+            this.entries.clear();
+            this.maxId = 0;
+            this.loaded = true;
+        }
+
+        private void put(Reinforcement reinforcement) {
+            entries.put(reinforcement.getId(), reinforcement);
+            maxId = Math.max(maxId, reinforcement.getId());
+        }
+
+        private void apply(Entry entry) {
+            switch (entry.op()) {
+                case PUT -> put(entry.reinforcement());
+                case DELETE -> entries.remove(entry.id());
+                case REPLACE_ALL -> {
+                    entries.clear();
+                    maxId = 0;
+                    entry.reinforcements().forEach(this::put);
+                }
+                case BATCH -> {
+                    entry.reinforcements().forEach(this::put);
+                    entry.deletedIds().forEach(entries::remove);
                 }
-                reinforcementList.set(i, updatedReinforcement);
-                break;
+            }
+            if (entry.date() != null) {
+                lastUpdated = entry.date();
+            }
+            if (entry.revision() != null) {
+                revision = Math.max(revision, entry.revision());
             }
         }
-        
-        return saveUserReinforcements(username, userReinforcements);
-    }
 
-    public Map<String, Object> deleteReinforcement(String username, int reinforcementId) throws IOException {
-        Map<String, Object> userReinforcements = getUserReinforcements(username);
-        
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> reinforcementList = (List<Map<String, Object>>) userReinforcements.get("reinforcements");
-        
-        reinforcementList.removeIf(r -> (Integer) r.get("id") == reinforcementId);
-        
-        return saveUserReinforcements(username, userReinforcements);
+        private UserReinforcements toUserReinforcements() {
+            return new UserReinforcements(version, revision, lastUpdated, new ArrayList<>(entries.values()));
+        }
     }
 
-    private Path getUserReinforcementFile(String username) {
-        return Paths.get(documentsPath, username, "reinforcements.json");
+    // Data classes mirroring the reinforcements.json layout
+
+    @JsonPropertyOrder({"version", "revision", "lastUpdated", "reinforcements"})
+    public static class UserReinforcements {
+        private final String version;
+        // Incremented on every change; used for compare-and-set updates
+        private final long revision;
+        private final String lastUpdated;
+        private final List<Reinforcement> reinforcements;
+
+        @JsonCreator
+        public UserReinforcements(@JsonProperty("version") String version,
+                                  @JsonProperty("revision") long revision,
+                                  @JsonProperty("lastUpdated") String lastUpdated,
+                                  @JsonProperty("reinforcements") List<Reinforcement> reinforcements) {
+            this.version = version;
+            this.revision = revision;
+            this.lastUpdated = lastUpdated;
+            this.reinforcements = reinforcements != null ? Collections.unmodifiableList(reinforcements) : List.of();
+        }
+
+        // Getters
+        public String getVersion() { return version; }
+        public long getRevision() { return revision; }
+        public String getLastUpdated() { return lastUpdated; }
+        public List<Reinforcement> getReinforcements() { return reinforcements; }
     }
 
-    private Map<String, Object> createDefaultReinforcements(String username) {
-        Map<String, Object> defaultReinforcements = new HashMap<>();
-        defaultReinforcements.put("version", "1.0");
-        defaultReinforcements.put("lastUpdated", LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE));
-        defaultReinforcements.put("reinforcements", new ArrayList<>());
-        
-        try {
-            return saveUserReinforcements(username, defaultReinforcements);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to create default reinforcements for user: " + username, e);
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonPropertyOrder({"id", "category", "description", "priority", "status", "notes", "dateAdded"})
+    public static class Reinforcement {
+        private final int id;
+        private final String category;
+        private final String description;
+        private final String priority;
+        private final String status;
+        private final String notes;
+        private final String dateAdded;
+        // Fields written by other clients that this service does not interpret
+        private final Map<String, Object> additionalFields = new LinkedHashMap<>();
+
+        @JsonCreator
+        public Reinforcement(@JsonProperty("id") int id,
+                             @JsonProperty("category") String category,
+                             @JsonProperty("description") String description,
+                             @JsonProperty("priority") String priority,
+                             @JsonProperty("status") String status,
+                             @JsonProperty("notes") String notes,
+                             @JsonProperty("dateAdded") String dateAdded) {
+            this.id = id;
+            this.category = category;
+            this.description = description;
+            this.priority = priority;
+            this.status = status;
+            this.notes = notes;
+            this.dateAdded = dateAdded;
+        }
+
+        public Reinforcement withIdentity(int id, String dateAdded) {
+            Reinforcement copy = new Reinforcement(id, category, description, priority, status, notes, dateAdded);
+            copy.additionalFields.putAll(additionalFields);
+            return copy;
+        }
+
+        // Getters
+        public int getId() { return id; }
+        public String getCategory() { return category; }
+        public String getDescription() { return description; }
+        public String getPriority() { return priority; }
+        public String getStatus() { return status; }
+        public String getNotes() { return notes; }
+        public String getDateAdded() { return dateAdded; }
+
+        @JsonAnyGetter
+        public Map<String, Object> getAdditionalFields() { return Collections.unmodifiableMap(additionalFields); }
+
+        @JsonAnySetter
+        private void setAdditionalField(String name, Object value) {
+            additionalFields.put(name, value);
         }
     }
 }
@@ -0,0 +1,7 @@
+package com.x9chat.service;
+
+/**
+ * Published after a user's reinforcements change, carrying the revision the change produced.
+ */
+public record ReinforcementsChangedEvent(String username, long revision) {
+}
@@ -0,0 +1,84 @@
+package com.x9chat.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one computation per key at a time. A caller that arrives while the same key
+ * is in flight waits for it and gets the same result or exception instead of starting its
+ * own. Nothing is cached: once a computation finishes, the next caller starts a fresh one.
+ *
+ * Calls are counted as x9.singleflight.calls, tagged with the name and whether the caller
+ * ran the work (executed) or shared another caller's (coalesced).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        FunctionCounter.builder("x9.singleflight.calls", executed, AtomicLong::get)
+            .description("Calls that ran a computation or joined one already in flight")
+            .tags("name", name, "result", "executed")
+            .register(registry);
+        FunctionCounter.builder("x9.singleflight.calls", coalesced, AtomicLong::get)
+            .description("Calls that ran a computation or joined one already in flight")
+            .tags("name", name, "result", "coalesced")
+            .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return await(leader);
+        }
+
+        executed.incrementAndGet();
+        try {
+            V result = work.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public long getExecuted() {
+        return executed.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private V await(CompletableFuture<V> leader) {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an identical request", e);
+        } catch (ExecutionException e) {
+            // Rethrow the leader's exception so every caller sees the same failure
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -1,26 +1,105 @@
 package com.x9chat.service;
 
+import com.x9chat.ingestion.IngestionService;
+import com.x9chat.ingestion.WarmingUpException;
+import com.x9chat.metrics.IndexStatistics;
+import com.x9chat.metrics.RagMetrics;
+import com.x9chat.vectorstore.EmbeddingVectorStore;
+import com.x9chat.vectorstore.TimeScope;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.ai.chat.prompt.PromptTemplate;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.ollama.api.OllamaOptions;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * Answers team questions with retrieval-augmented generation.
+ *
+ * Every model call has a deadline and goes through a CircuitBreaker. When the chat model is
+ * slow or down the answer degrades to the best matching note excerpts, returned at once while
+ * its breaker is open; when the embedding model is down retrieval falls back to keyword search.
+ */
 @Service
 public class X9ChatService {
 
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
+    private final RagMetrics ragMetrics;
+    private final IngestionService ingestionService;
+    private final IndexStatistics indexStatistics;
+    // Concurrent askers of the same question share one retrieval and generation
+    private final SingleFlight<String, Answer> answers;
+    private final QueryRouter queryRouter;
+    private final MeterRegistry meterRegistry;
+    private CircuitBreaker chatBreaker;
+    private CircuitBreaker lookupBreaker;
+    private CircuitBreaker embeddingBreaker;
+
+    private static final int TOP_K = 5;
+    private static final int EXCERPT_CHARS = 400;
+    // Factual lookups need the one or two notes that hold the fact
+    private static final int LOOKUP_TOP_K = 3;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\s?!.]+$");
+
+    // Age in days at which a note's recency bonus halves
+    @Value("${app.retrieval.recency-half-life-days:30}")
+    private double recencyHalfLifeDays;
+
+    // Share of the ranking score given to recency; 0 ranks by similarity alone
+    @Value("${app.retrieval.recency-weight:0.0}")
+    private double recencyWeight;
+
+    @Value("${app.routing.enabled:true}")
+    private boolean routingEnabled;
+
+    @Value("${spring.ai.ollama.chat.options.model:llama3.2}")
+    private String defaultModel;
+
+    // Small model for factual lookups; blank sends them to the default model, still with the short prompt
+    @Value("${app.routing.lookup-model:}")
+    private String lookupModel;
+
+    @Value("${app.resilience.chat-timeout-ms:45000}")
+    private long chatTimeoutMs;
+
+    @Value("${app.resilience.embedding-timeout-ms:5000}")
+    private long embeddingTimeoutMs;
+
+    // Failed or timed-out calls in a row that open a breaker, and how long it then stays open
+    @Value("${app.resilience.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${app.resilience.open-seconds:30}")
+    private long openSeconds;
+
+    // Calls per model still running, counting ones past their deadline, beyond which new calls are refused
+    @Value("${app.resilience.max-in-flight:64}")
+    private int maxInFlight;
 
     private static final String SYSTEM_PROMPT = """
         You are an AI assistant specialized in analyzing team dynamics and emotional well-being from meeting notes, 1:1 conversations, and coaching reinforcements.
-        
+
         Your primary focus is understanding how team members are feeling based on:
         - 1:1 meeting notes and progress discussions
         - Team member updates and personal reflections
@@ -33,7 +112,7 @@ public class X9ChatService {
         - Coaching reinforcements and development feedback
         - Study frequency and learning progress
         - Corporate contribution levels and engagement
-        
+
         When analyzing team sentiment, pay attention to:
         - Emotional language and tone indicators
         - Mentions of stress, burnout, or overwhelm
@@ -45,7 +124,7 @@ public class X9ChatService {
         - Support needs and resource requests
         - Reinforcement patterns and coaching focus areas
         - Development progress and learning engagement
-        
+
         Provide insights that help managers and team leads understand:
         - Overall team morale and emotional health
         - Individual team member sentiment trends
@@ -55,7 +134,7 @@ public class X9ChatService {
         - Team cohesion and collaboration effectiveness
         - Reinforcement effectiveness and progress tracking
         - Development opportunities and growth areas
-        
+
         Always be:
         - Empathetic and understanding in your analysis
         - Respectful of personal and sensitive information
@@ -63,7 +142,7 @@ public class X9ChatService {
         - Careful to distinguish between facts and interpretations
         - Supportive of mental health and well-being
         - Attentive to reinforcement patterns and development progress
-        
+
         When asked about specific team members, provide thoughtful analysis based on their recent meeting notes and reinforcement data,
         highlighting both strengths and areas where they might benefit from additional support or recognition.
         Consider their current reinforcement focus areas and development goals in your analysis.
@@ -71,29 +150,94 @@ public class X9ChatService {
 
     private static final String RAG_PROMPT_TEMPLATE = """
         {system_prompt}
-        
+
         Based on the following team meeting notes, conversations, and reinforcement data:
         {documents}
-        
+
         Question: {question}
-        
-        Please provide a thoughtful analysis focused on team member feelings, sentiment, and well-being. 
+
+        Please provide a thoughtful analysis focused on team member feelings, sentiment, and well-being.
         Be specific about what you observe in the meeting notes and reinforcement patterns while being respectful of personal information.
         When reinforcement data is available, consider how the coaching focus areas relate to overall team member satisfaction and development progress.
         """;
 
-    public X9ChatService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore) {
+    private static final String LOOKUP_PROMPT_TEMPLATE = """
+        You answer factual questions about a software team from their meeting notes and coaching reinforcements.
+        Answer in one or two sentences using only the notes below. If they do not contain the answer, say so.
+
+        Notes:
+        {documents}
+
+        Question: {question}
+        """;
+
+    public X9ChatService(ChatClient.Builder chatClientBuilder, VectorStore vectorStore, RagMetrics ragMetrics,
+                         IngestionService ingestionService, IndexStatistics indexStatistics, MeterRegistry meterRegistry,
+                         QueryRouter queryRouter) {
         this.chatClient = chatClientBuilder.build();
         this.vectorStore = vectorStore;
+        this.ragMetrics = ragMetrics;
+        this.ingestionService = ingestionService;
+        this.indexStatistics = indexStatistics;
+        this.answers = new SingleFlight<>("chat", meterRegistry);
+        this.queryRouter = queryRouter;
+        this.meterRegistry = meterRegistry;
     }
 
-    public String askQuestion(String question) {
-        // Retrieve relevant documents
-        List<Document> relevantDocs = vectorStore.similaritySearch(
-            SearchRequest.query(question).withTopK(5)
-        );
+    @PostConstruct
+    public void init() {
+        Duration open = Duration.ofSeconds(openSeconds);
+        chatBreaker = new CircuitBreaker("chat", failureThreshold, open, maxInFlight);
+        // Separate, so a missing small model doesn't cut off the default one
+        lookupBreaker = new CircuitBreaker("chat_lookup", failureThreshold, open, maxInFlight);
+        embeddingBreaker = new CircuitBreaker("embedding", failureThreshold, open, maxInFlight);
+        for (CircuitBreaker breaker : List.of(chatBreaker, lookupBreaker, embeddingBreaker)) {
+            breaker.bindTo(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        chatBreaker.close();
+        lookupBreaker.close();
+        embeddingBreaker.close();
+    }
+
+    public Answer askQuestion(String question) {
+        // An empty index would make the model answer as if the team had no notes at all
+        if (!ingestionService.isServing()) {
+            throw new WarmingUpException(ingestionService.getStatus());
+        }
+        Timer.Sample request = ragMetrics.startRequest();
+        try {
+            Answer answer = answers.execute(normalize(question), () -> answer(question));
+            ragMetrics.stopRequest(request, answer.isDegraded() ? "degraded" : "success");
+            return answer;
+        } catch (RuntimeException e) {
+            ragMetrics.stopRequest(request, "error");
+            throw e;
+        }
+    }
+
+    private Answer answer(String question) {
+        long start = System.nanoTime();
+        QueryRouter.Decision decision = routingEnabled ? queryRouter.route(question)
+            : new QueryRouter.Decision(QueryRouter.Route.ANALYSIS, null);
+        Answer answer = decision.route() == QueryRouter.Route.METADATA
+            ? new Answer(decision.answer(), decision.route(), null, false)
+            : generate(question, decision.route());
+        ragMetrics.recordRoute(routeName(decision.route()), System.nanoTime() - start);
+        return answer;
+    }
+
+    private Answer generate(String question, QueryRouter.Route route) {
+        boolean lookup = route == QueryRouter.Route.LOOKUP;
+        Optional<DateWindow> window = DateWindow.parse(question, LocalDate.now());
+        Retrieval retrieval = retrieve(question, window, lookup ? LOOKUP_TOP_K : TOP_K);
+        List<Document> relevantDocs = retrieval.documents();
 
         // Combine document content
+        long templateStart = System.nanoTime();
         String documents = relevantDocs.stream()
             .map(doc -> {
                 String source = (String) doc.getMetadata().get("source");
@@ -110,22 +254,136 @@ public class X9ChatService {
                 if (date != null) {
                     context.append(" (Date: ").append(date).append(")");
                 }
-                context.append("\nContent:\n").append(doc.getContent());
+                context.append("\nContent:\n").append(doc.getText());
                 
                 return context.toString();
             })
             .collect(Collectors.joining("\n\n---\n\n"));
 
         // Create prompt with context
-        PromptTemplate promptTemplate = new PromptTemplate(RAG_PROMPT_TEMPLATE);
-        Prompt prompt = promptTemplate.create(Map.of(
-            "system_prompt", SYSTEM_PROMPT,
-            "documents", documents.isEmpty() ? "No relevant team information found." : documents,
-            "question", question
-        ));
+        String context = documents.isEmpty() ? noDocuments(window) : documents;
+        Prompt prompt = lookup
+            ? new PromptTemplate(LOOKUP_PROMPT_TEMPLATE).create(Map.of("documents", context, "question", question))
+            : new PromptTemplate(RAG_PROMPT_TEMPLATE).create(Map.of(
+                "system_prompt", SYSTEM_PROMPT,
+                "documents", context,
+                "question", question
+            ));
+        ragMetrics.recordStage(RagMetrics.STAGE_PROMPT_TEMPLATE, System.nanoTime() - templateStart);
+
+        // One deadline for the whole answer: a fallback to the default model only gets what the lookup left
+        long deadlineNanos = System.nanoTime() + Duration.ofMillis(chatTimeoutMs).toNanos();
+        if (lookup && !lookupModel.isBlank()) {
+            try {
+                Prompt routed = new Prompt(prompt.getInstructions(), OllamaOptions.builder().model(lookupModel).build());
+                return new Answer(lookupBreaker.call(() -> generate(routed), remaining(deadlineNanos)), route, lookupModel, false);
+            } catch (ModelUnavailableException e) {
+                // Most likely the small model has not been pulled; the default model can still answer
+                System.err.println("Lookup model " + lookupModel + " failed, using " + defaultModel + ": " + e.getMessage());
+            }
+        }
+        Duration remaining = remaining(deadlineNanos);
+        if (remaining.isZero()) {
+            // Not the default model's fault, so its breaker is left alone
+            System.err.println("Answering with note excerpts: no time left after the lookup model");
+            return excerpts(relevantDocs, window, route, retrieval.byKeyword());
+        }
+        // Refused at once while the breaker is open, so the excerpts come back without waiting
+        try {
+            return new Answer(chatBreaker.call(() -> generate(prompt), remaining), route, defaultModel, false);
+        } catch (ModelUnavailableException e) {
+            System.err.println("Answering with note excerpts: " + e.getMessage());
+            return excerpts(relevantDocs, window, route, retrieval.byKeyword());
+        }
+    }
+
+    private static Duration remaining(long deadlineNanos) {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * The degraded answer: the retrieved notes themselves, trimmed, in ranking order.
+     */
+    private Answer excerpts(List<Document> documents, Optional<DateWindow> window, QueryRouter.Route route,
+                            boolean byKeyword) {
+        if (documents.isEmpty()) {
+            return new Answer("The AI model is not responding right now. " + noDocuments(window), route, null, true);
+        }
+        StringBuilder text = new StringBuilder("The AI model is not responding right now, so here are the most relevant notes")
+            .append(byKeyword ? " by keyword" : "").append(":");
+        for (Document doc : documents) {
+            Map<String, Object> metadata = doc.getMetadata();
+            text.append("\n\n").append(metadata.getOrDefault("source", "note"));
+            if (metadata.get("username") != null) {
+                text.append(" (").append(metadata.get("username")).append(")");
+            }
+            if (metadata.get("date") != null) {
+                text.append(", ").append(metadata.get("date"));
+            }
+            String content = doc.getText().strip();
+            text.append(":\n").append(content.length() > EXCERPT_CHARS ? content.substring(0, EXCERPT_CHARS) + "..." : content);
+        }
+        return new Answer(text.toString(), route, null, true);
+    }
+
+    private String generate(Prompt prompt) {
+        long generationStart = System.nanoTime();
+        ChatResponse response = chatClient.prompt(prompt).call().chatResponse();
+        long generationNanos = System.nanoTime() - generationStart;
+        ragMetrics.recordStage(RagMetrics.STAGE_GENERATION, generationNanos);
+        ragMetrics.recordUsage(response.getMetadata().getUsage(), generationNanos);
+
+        return response.getResult().getOutput().getText();
+    }
+
+    private Retrieval retrieve(String question, Optional<DateWindow> window, int topK) {
+        Duration deadline = Duration.ofMillis(embeddingTimeoutMs);
+        if (vectorStore instanceof EmbeddingVectorStore store) {
+            // A window in the question keeps older and newer notes out of the scan altogether
+            TimeScope scope = TimeScope.ANY.withRecency(LocalDate.now(), recencyHalfLifeDays, recencyWeight);
+            if (window.isPresent()) {
+                scope = scope.withWindow(window.get().from(), window.get().to());
+            }
+            TimeScope searchScope = scope;
+            // Embed first so the vector_search stage times the scan alone
+            float[] queryEmbedding;
+            try {
+                queryEmbedding = embeddingBreaker.call(() -> store.getEmbeddingModel().embed(question), deadline);
+            } catch (ModelUnavailableException e) {
+                System.err.println("Searching by keyword: " + e.getMessage());
+                return new Retrieval(ragMetrics.timeStage(RagMetrics.STAGE_VECTOR_SEARCH, () ->
+                    store.keywordSearch(question, topK, searchScope)), true);
+            }
+            return new Retrieval(ragMetrics.timeStage(RagMetrics.STAGE_VECTOR_SEARCH, () ->
+                store.similaritySearch(queryEmbedding, topK, SearchRequest.SIMILARITY_THRESHOLD_ACCEPT_ALL, searchScope)
+            ), false);
+        }
+        // Other stores embed the query themselves, so the stage includes the embedding call
+        try {
+            return new Retrieval(ragMetrics.timeStage(RagMetrics.STAGE_VECTOR_SEARCH, () -> embeddingBreaker.call(() ->
+                vectorStore.similaritySearch(SearchRequest.builder().query(question).topK(topK).build()), deadline)
+            ), false);
+        } catch (ModelUnavailableException e) {
+            System.err.println("No search without embeddings: " + e.getMessage());
+            return new Retrieval(List.of(), true);
+        }
+    }
 
-        // Get response from AI
-        return chatClient.prompt(prompt).call().content();
+    /**
+     * Case, spacing and closing punctuation don't change the answer, so they don't split a flight.
+     */
+    static String normalize(String question) {
+        String collapsed = WHITESPACE.matcher(question.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(collapsed).replaceAll("");
+    }
+
+    private static String routeName(QueryRouter.Route route) {
+        return route.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String noDocuments(Optional<DateWindow> window) {
+        return window.map(w -> "No team notes are dated " + w.describe() + ".")
+            .orElse("No relevant team information found.");
     }
 
     public List<String> getAvailableTopics() {
@@ -146,12 +404,68 @@ public class X9ChatService {
         );
     }
     
+    /**
+     * Index and latency figures for the dashboard, read from running counters rather than the store.
+     */
     public Map<String, Object> getStats() {
-        // This could be enhanced to return actual stats from the vector store
-        return Map.of(
-            "totalDocuments", "Loading...",
-            "lastUpdated", "Loading...",
-            "teamMembers", "Loading..."
-        );
+        Map<String, Long> chunksByUser = indexStatistics.getChunksByUser();
+        Instant lastUpdated = indexStatistics.getLastUpdated();
+
+        Map<String, Object> embeddingCache = new LinkedHashMap<>();
+        embeddingCache.put("reused", indexStatistics.getEmbeddingsReused());
+        embeddingCache.put("computed", indexStatistics.getEmbeddingsComputed());
+        embeddingCache.put("hitRate", indexStatistics.getEmbeddingCacheHitRate());
+
+        // Retrieval is the query embedding plus the vector scan, timed separately in retrieve()
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("questions", ragMetrics.stageCount(RagMetrics.STAGE_GENERATION));
+        latency.put("avgRetrievalMs", ragMetrics.meanStageMillis(RagMetrics.STAGE_QUERY_EMBEDDING)
+            + ragMetrics.meanStageMillis(RagMetrics.STAGE_VECTOR_SEARCH));
+        latency.put("avgGenerationMs", ragMetrics.meanStageMillis(RagMetrics.STAGE_GENERATION));
+
+        Map<String, Object> routes = new LinkedHashMap<>();
+        for (QueryRouter.Route route : QueryRouter.Route.values()) {
+            String name = routeName(route);
+            routes.put(name, Map.of("questions", ragMetrics.routeCount(name), "avgMs", ragMetrics.meanRouteMillis(name)));
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalDocuments", indexStatistics.getDocuments());
+        stats.put("totalChunks", indexStatistics.getTotalChunks());
+        stats.put("teamMembers", chunksByUser.size());
+        stats.put("chunksByUser", chunksByUser);
+        stats.put("chunksByType", indexStatistics.getChunksByType());
+        stats.put("lastUpdated", lastUpdated != null ? lastUpdated.toString() : null);
+        stats.put("indexBytes", indexStatistics.getIndexBytes());
+        stats.put("embeddingCache", embeddingCache);
+        stats.put("latency", latency);
+        stats.put("routes", routes);
+        return stats;
+    }
+
+    private record Retrieval(List<Document> documents, boolean byKeyword) {
+    }
+
+    /**
+     * An answer with the route that produced it and the model used, if any. Degraded answers
+     * are note excerpts returned because the model was unavailable.
+     */
+    public static class Answer {
+        private final String text;
+        private final QueryRouter.Route route;
+        private final String model;
+        private final boolean degraded;
+
+        Answer(String text, QueryRouter.Route route, String model, boolean degraded) {
+            this.text = text;
+            this.route = route;
+            this.model = model;
+            this.degraded = degraded;
+        }
+
+        public String getText() { return text; }
+        public QueryRouter.Route getRoute() { return route; }
+        public String getModel() { return model; }
+        public boolean isDegraded() { return degraded; }
     }
 }
@@ -0,0 +1,383 @@
+package com.x9chat.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-memory vector store that keeps document text and metadata by slot number and leaves
+ * how vectors are stored and scanned to subclasses.
+ *
+ * Vectors are normalised once, before they reach a subclass, so cosine similarity is a plain
+ * dot product computed by the SimilarityKernel. Deleted slots are reused by later adds. Like SimpleVectorStore, filter expressions
+ * are not supported. The "date" metadata of each chunk is kept in a date-ordered index, so a
+ * search restricted to a TimeScope window only visits the slots dated inside it. Stopping the store (before a CRaC checkpoint, or at shutdown) closes any
+ * files a subclass holds open; they are reopened on next use.
+ */
+public abstract class AbstractEmbeddingVectorStore implements EmbeddingVectorStore, SmartLifecycle, AutoCloseable {
+
+    private final EmbeddingModel embeddingModel;
+    private final SimilarityKernel kernel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private StoredDocument[] documents = new StoredDocument[1024];
+    private int[] slotDays = new int[1024];
+    // (epoch day << 32 | slot) for every dated slot, so a date range is one subSet
+    private final NavigableSet<Long> dateIndex = new TreeSet<>();
+    private int slotCount;
+    private int dimensions = -1;
+    private volatile boolean running;
+
+    protected AbstractEmbeddingVectorStore(EmbeddingModel embeddingModel, SimilarityKernel kernel) {
+        this.embeddingModel = embeddingModel;
+        this.kernel = kernel;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        // Embed outside the lock; searches keep running while Ollama works
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            embeddings.add(embeddingModel.embed(document));
+        }
+        add(documents, embeddings);
+    }
+
+    @Override
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        if (documents.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Got " + embeddings.size() + " embeddings for " + documents.size() + " documents");
+        }
+        List<float[]> vectors = new ArrayList<>(embeddings.size());
+        for (float[] embedding : embeddings) {
+            vectors.add(normalize(embedding));
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < documents.size(); i++) {
+                Document document = documents.get(i);
+                float[] vector = vectors.get(i);
+                if (dimensions < 0) {
+                    dimensions = vector.length;
+                    initialize(dimensions);
+                } else if (vector.length != dimensions) {
+                    throw new IllegalArgumentException("Expected " + dimensions + " dimensions but document "
+                            + document.getId() + " has " + vector.length);
+                }
+
+                Integer slot = slotsById.get(document.getId());
+                if (slot == null) {
+                    slot = freeSlots.isEmpty() ? slotCount++ : freeSlots.pop();
+                    slotsById.put(document.getId(), slot);
+                }
+                if (slot >= this.documents.length) {
+                    this.documents = Arrays.copyOf(this.documents, this.documents.length * 2);
+                    this.slotDays = Arrays.copyOf(this.slotDays, this.documents.length);
+                } else if (this.documents[slot] != null) {
+                    unindexDate(slot);
+                }
+                this.documents[slot] = new StoredDocument(document.getId(), document.getText(),
+                        new HashMap<>(document.getMetadata()));
+                indexDate(slot, document.getMetadata().get("date"));
+                write(slot, vector);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                Integer slot = slotsById.remove(id);
+                if (slot != null) {
+                    unindexDate(slot);
+                    documents[slot] = null;
+                    clear(slot);
+                    freeSlots.push(slot);
+                }
+            }
+            return Optional.of(true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getFilterExpression() != null) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support filter expressions");
+        }
+        return similaritySearch(embeddingModel.embed(request.getQuery()), request.getTopK(),
+                request.getSimilarityThreshold());
+    }
+
+    @Override
+    public List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold, TimeScope scope) {
+        float[] query = normalize(queryEmbedding);
+        lock.readLock().lock();
+        try {
+            if (dimensions < 0 || topK <= 0) {
+                return List.of();
+            }
+            if (query.length != dimensions) {
+                throw new IllegalArgumentException("Expected a " + dimensions + "-dimension query but got " + query.length);
+            }
+
+            int[] candidates = null;
+            if (scope.hasWindow()) {
+                candidates = slotsDated(scope.from(), scope.to());
+                if (candidates.length == 0) {
+                    return List.of();
+                }
+            }
+            TopK.Ranked ranked = search(query, topK, Scan.of(candidates, slotDays, scope));
+            List<Document> results = new ArrayList<>(ranked.size());
+            for (int i = 0; i < ranked.size(); i++) {
+                double score = ranked.scores()[i];
+                if (score < similarityThreshold) {
+                    break;
+                }
+                results.add(documents[ranked.slots()[i]].toDocument(score));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Document> keywordSearch(String query, int topK, TimeScope scope) {
+        KeywordQuery keywords = KeywordQuery.parse(query);
+        if (keywords.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = scope.hasWindow() ? slotsDated(scope.from(), scope.to()) : null;
+            Scan scan = Scan.of(candidates, slotDays, scope);
+            TopK ranked = new TopK(topK);
+            int count = scan.size(slotCount);
+            for (int i = 0; i < count; i++) {
+                int slot = scan.slot(i);
+                StoredDocument document = documents[slot];
+                if (document == null) {
+                    continue;
+                }
+                // The owner is matched too, since "alice" is rarely written in alice's own notes
+                float score = keywords.score(document.metadata().get("username") + "\n" + document.content());
+                if (score > 0) {
+                    ranked.offer(slot, scan.score(slot, score));
+                }
+            }
+            TopK.Ranked top = ranked.drain();
+            List<Document> results = new ArrayList<>(top.size());
+            for (int i = 0; i < top.size(); i++) {
+                results.add(documents[top.slots()[i]].toDocument(top.scores()[i]));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every stored document with its normalised vector, under the read lock.
+     */
+    public void forEachDocument(BiConsumer<Document, float[]> visitor) {
+        lock.readLock().lock();
+        try {
+            for (int slot = 0; slot < slotCount; slot++) {
+                StoredDocument document = documents[slot];
+                if (document != null) {
+                    visitor.accept(document.toDocument(), read(slot));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public EmbeddingModel getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    public SimilarityKernel getKernel() {
+        return kernel;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        lock.writeLock().lock();
+        try {
+            releaseFiles();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server has drained and start before it accepts requests
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * Closes open file handles, under the write lock. Subclasses must reopen them on demand.
+     */
+    void releaseFiles() {
+    }
+
+    /**
+     * Called once, under the write lock, when the first vector fixes the dimension count.
+     */
+    abstract void initialize(int dimensions);
+
+    /**
+     * Stores a normalised vector in a slot, which may be new or may be overwritten.
+     */
+    abstract void write(int slot, float[] vector);
+
+    /**
+     * Returns a copy of the normalised vector in a live slot. Called under the read lock.
+     */
+    abstract float[] read(int slot);
+
+    /**
+     * Releases a deleted slot. It will not be scanned again until it is written.
+     */
+    abstract void clear(int slot);
+
+    /**
+     * Returns up to topK of the slots the scan visits, ranked by the scan's score of their
+     * cosine similarity to the normalised query, highest first. Called under the read lock.
+     */
+    abstract TopK.Ranked search(float[] query, int topK, Scan scan);
+
+    /**
+     * Number of slots handed out so far, live or free; scans can stop here.
+     */
+    int slotCount() {
+        return slotCount;
+    }
+
+    boolean isLive(int slot) {
+        return documents[slot] != null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private void indexDate(int slot, Object date) {
+        slotDays[slot] = Scan.UNDATED;
+        if (date == null) {
+            return;
+        }
+        try {
+            int day = (int) LocalDate.parse(date.toString()).toEpochDay();
+            slotDays[slot] = day;
+            dateIndex.add(dateKey(day, slot));
+        } catch (DateTimeParseException e) {
+            // Left undated; a malformed date should not keep a chunk out of the index
+        }
+    }
+
+    private void unindexDate(int slot) {
+        if (slotDays[slot] != Scan.UNDATED) {
+            dateIndex.remove(dateKey(slotDays[slot], slot));
+            slotDays[slot] = Scan.UNDATED;
+        }
+    }
+
+    // Live slots dated from..to inclusive, oldest first
+    private int[] slotsDated(LocalDate from, LocalDate to) {
+        long low = from != null ? dateKey((int) from.toEpochDay(), 0) : Long.MIN_VALUE;
+        long high = to != null ? dateKey((int) to.toEpochDay() + 1, 0) : Long.MAX_VALUE;
+        NavigableSet<Long> window = dateIndex.subSet(low, true, high, false);
+        int[] slots = new int[window.size()];
+        int i = 0;
+        for (long key : window) {
+            slots[i++] = (int) key;
+        }
+        return slots;
+    }
+
+    private static long dateKey(int day, int slot) {
+        return (long) day << 32 | (slot & 0xffffffffL);
+    }
+
+    private float[] normalize(float[] vector) {
+        float sum = kernel.dot(vector, vector, 0);
+        if (sum == 0) {
+            return vector.clone();
+        }
+        float scale = (float) (1.0 / Math.sqrt(sum));
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = vector[i] * scale;
+        }
+        return normalized;
+    }
+
+    private record StoredDocument(String id, String content, Map<String, Object> metadata) {
+
+        Document toDocument() {
+            return new Document(id, content, new HashMap<>(metadata));
+        }
+
+        Document toDocument(double score) {
+            Map<String, Object> resultMetadata = new HashMap<>(metadata);
+            resultMetadata.put("distance", 1 - score);
+            return Document.builder()
+                .id(id)
+                .text(content)
+                .metadata(resultMetadata)
+                .score(score)
+                .build();
+        }
+    }
+}
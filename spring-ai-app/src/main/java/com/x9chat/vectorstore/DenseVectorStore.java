@@ -0,0 +1,81 @@
+package com.x9chat.vectorstore;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.util.Arrays;
+
+/**
+ * Brute-force store over full-precision vectors, the replacement for SimpleVectorStore.
+ *
+ * Vectors are normalised on insert and packed into one contiguous float array, so a search
+ * is a single pass of SIMD dot products with no per-document objects or norm computations.
+ */
+public class DenseVectorStore extends AbstractEmbeddingVectorStore {
+
+    private int dimensions;
+    private float[] vectors = new float[0];
+
+    public DenseVectorStore(EmbeddingModel embeddingModel, SimilarityKernel kernel) {
+        super(embeddingModel, kernel);
+    }
+
+    @Override
+    void initialize(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    void write(int slot, float[] vector) {
+        long required = (long) (slot + 1) * dimensions;
+        if (vectors.length < required) {
+            // Start small; a sharded index holds many of these, most of them little
+            long capacity = Math.max(required, Math.max(64L * dimensions, vectors.length * 2L));
+            vectors = Arrays.copyOf(vectors, Math.toIntExact(Math.min(capacity, Integer.MAX_VALUE - 8)));
+            if (vectors.length < required) {
+                throw new IllegalStateException("DenseVectorStore is full; use int8 or binary quantization for larger indexes");
+            }
+        }
+        System.arraycopy(vector, 0, vectors, slot * dimensions, dimensions);
+    }
+
+    @Override
+    float[] read(int slot) {
+        return Arrays.copyOfRange(vectors, slot * dimensions, (slot + 1) * dimensions);
+    }
+
+    @Override
+    void clear(int slot) {
+        // Dead slots are skipped by the scan and overwritten when reused
+    }
+
+    @Override
+    TopK.Ranked search(float[] query, int topK, Scan scan) {
+        TopK ranked = new TopK(topK);
+        SimilarityKernel kernel = getKernel();
+        if (scan.scansAll() && !scan.decays()) {
+            // The common case keeps the tight loop
+            int slots = slotCount();
+            for (int slot = 0; slot < slots; slot++) {
+                if (isLive(slot)) {
+                    ranked.offer(slot, kernel.dot(query, vectors, slot * dimensions));
+                }
+            }
+            return ranked.drain();
+        }
+        int count = scan.size(slotCount());
+        for (int i = 0; i < count; i++) {
+            int slot = scan.slot(i);
+            if (isLive(slot)) {
+                ranked.offer(slot, scan.score(slot, kernel.dot(query, vectors, slot * dimensions)));
+            }
+        }
+        return ranked.drain();
+    }
+
+    /**
+     * Heap bytes taken by the vectors.
+     */
+    public long vectorBytes() {
+        return (long) vectors.length * Float.BYTES;
+    }
+}
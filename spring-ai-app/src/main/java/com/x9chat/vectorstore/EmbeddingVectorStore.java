@@ -0,0 +1,45 @@
+package com.x9chat.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.util.List;
+
+/**
+ * A VectorStore that also accepts embeddings computed elsewhere, so callers can embed once
+ * and reuse the vectors, e.g. to time the query embedding separately or to restore an index
+ * without calling the model.
+ */
+public interface EmbeddingVectorStore extends VectorStore {
+
+    EmbeddingModel getEmbeddingModel();
+
+    /**
+     * Adds documents with their embeddings, in the same order, without calling the embedding model.
+     */
+    void add(List<Document> documents, List<float[]> embeddings);
+
+    /**
+     * Searches with a query that has already been embedded.
+     */
+    default List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold) {
+        return similaritySearch(queryEmbedding, topK, similarityThreshold, TimeScope.ANY);
+    }
+
+    /**
+     * Searches only the chunks inside the scope's date window, ranked with its recency decay if any.
+     */
+    List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold, TimeScope scope);
+
+    /**
+     * Ranks chunks by the words of the query they contain, for when the query cannot be embedded.
+     * Scores run from 0 to 1 and only chunks matching at least one word are returned.
+     */
+    List<Document> keywordSearch(String query, int topK, TimeScope scope);
+
+    /**
+     * Number of documents currently held.
+     */
+    int size();
+}
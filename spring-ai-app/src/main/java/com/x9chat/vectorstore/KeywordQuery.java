@@ -0,0 +1,61 @@
+package com.x9chat.vectorstore;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Scores chunk text against the words of a question, for searching without a query embedding.
+ *
+ * A term matches at the start of a word, so "stress" also finds "stressed". Each term adds up
+ * to 1/terms to the score, reached at three occurrences, so scores run from 0 to 1 like cosine
+ * similarity and can go through the same recency blending and shard merge.
+ */
+final class KeywordQuery {
+
+    private static final int SATURATION = 3;
+    private static final Set<String> STOP_WORDS = Set.of(
+        "the", "and", "for", "are", "was", "were", "what", "when", "where", "which", "who", "whom", "why", "how",
+        "does", "did", "has", "have", "had", "with", "about", "from", "into", "that", "this", "these", "those",
+        "there", "their", "they", "them", "any", "all", "can", "could", "would", "should", "will", "been", "being",
+        "you", "your", "our", "his", "her", "its", "not", "but", "than", "then", "tell", "show", "give", "please",
+        "team", "notes", "note");
+
+    private final String[] terms;
+
+    private KeywordQuery(String[] terms) {
+        this.terms = terms;
+    }
+
+    static KeywordQuery parse(String question) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String word : question.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                terms.add(word);
+            }
+        }
+        return new KeywordQuery(terms.toArray(String[]::new));
+    }
+
+    boolean isEmpty() {
+        return terms.length == 0;
+    }
+
+    float score(String content) {
+        if (content == null || terms.length == 0) {
+            return 0;
+        }
+        String text = content.toLowerCase(Locale.ROOT);
+        float score = 0;
+        for (String term : terms) {
+            int hits = 0;
+            for (int at = text.indexOf(term); at >= 0 && hits < SATURATION; at = text.indexOf(term, at + term.length())) {
+                if (at == 0 || !Character.isLetterOrDigit(text.charAt(at - 1))) {
+                    hits++;
+                }
+            }
+            score += (float) hits / SATURATION;
+        }
+        return score / terms.length;
+    }
+}
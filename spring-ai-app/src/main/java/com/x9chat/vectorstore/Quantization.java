@@ -0,0 +1,24 @@
+package com.x9chat.vectorstore;
+
+/**
+ * How embeddings are held in memory for the first-pass scan.
+ */
+public enum Quantization {
+
+    /** Full-precision floats, 4 bytes per dimension. */
+    NONE,
+
+    /** One signed byte per dimension with a per-vector scale, scored by integer dot product. */
+    INT8,
+
+    /** One sign bit per dimension, scored by Hamming distance. */
+    BINARY;
+
+    public static Quantization fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown vector quantization '" + value + "', expected none, int8 or binary");
+        }
+    }
+}
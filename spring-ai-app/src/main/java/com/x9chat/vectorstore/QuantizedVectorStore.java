@@ -0,0 +1,210 @@
+package com.x9chat.vectorstore;
+
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Vector store that scans compact int8 or binary codes and rescores a shortlist exactly.
+ *
+ * Only the codes live on the heap: at 768 dimensions an int8 code takes 772 bytes and a
+ * binary code 96, against 3 KB for the floats. Full-precision vectors are written to a
+ * VectorFile and read back only for the top (topK * rescoreFactor) candidates of the scan.
+ */
+public class QuantizedVectorStore extends AbstractEmbeddingVectorStore {
+
+    private final Quantization quantization;
+    private final Path vectorsPath;
+    private final int rescoreFactor;
+
+    private int dimensions;
+    private int words;
+    private byte[] int8Codes = new byte[0];
+    private float[] int8Scales = new float[0];
+    private long[] binaryCodes = new long[0];
+    private VectorFile vectorFile;
+
+    public QuantizedVectorStore(EmbeddingModel embeddingModel, SimilarityKernel kernel, Quantization quantization,
+                                Path vectorsPath, int rescoreFactor) {
+        super(embeddingModel, kernel);
+        if (quantization == Quantization.NONE) {
+            throw new IllegalArgumentException("QuantizedVectorStore needs int8 or binary quantization");
+        }
+        if (rescoreFactor < 1) {
+            throw new IllegalArgumentException("Rescore factor must be at least 1");
+        }
+        this.quantization = quantization;
+        this.vectorsPath = vectorsPath;
+        this.rescoreFactor = rescoreFactor;
+    }
+
+    @Override
+    void initialize(int dimensions) {
+        this.dimensions = dimensions;
+        this.words = (dimensions + Long.SIZE - 1) / Long.SIZE;
+        this.vectorFile = new VectorFile(vectorsPath, dimensions);
+    }
+
+    @Override
+    void write(int slot, float[] vector) {
+        ensureCapacity(slot + 1);
+        if (quantization == Quantization.INT8) {
+            float max = maxAbs(vector);
+            float scale = max == 0 ? 0 : max / 127f;
+            int offset = slot * dimensions;
+            for (int i = 0; i < dimensions; i++) {
+                int8Codes[offset + i] = scale == 0 ? 0 : (byte) Math.round(vector[i] / scale);
+            }
+            int8Scales[slot] = scale;
+        } else {
+            int offset = slot * words;
+            Arrays.fill(binaryCodes, offset, offset + words, 0L);
+            for (int i = 0; i < dimensions; i++) {
+                if (vector[i] > 0) {
+                    binaryCodes[offset + (i >>> 6)] |= 1L << (i & 63);
+                }
+            }
+        }
+        vectorFile.write(slot, vector);
+    }
+
+    @Override
+    float[] read(int slot) {
+        float[] vector = new float[dimensions];
+        vectorFile.read(slot, vectorFile.newBuffer(), vector);
+        return vector;
+    }
+
+    @Override
+    void clear(int slot) {
+        // The slot is skipped by the scan until it is reused, which overwrites its code
+    }
+
+    @Override
+    TopK.Ranked search(float[] query, int topK, Scan scan) {
+        TopK.Ranked shortlist = quantization == Quantization.INT8 ? scanInt8(query, topK * rescoreFactor, scan)
+                : scanBinary(query, topK * rescoreFactor, scan);
+
+        // Exact cosine against the full-precision vectors, for the shortlist only
+        TopK ranked = new TopK(topK);
+        ByteBuffer buffer = vectorFile.newBuffer();
+        float[] candidate = new float[dimensions];
+        SimilarityKernel kernel = getKernel();
+        for (int slot : shortlist.slots()) {
+            vectorFile.read(slot, buffer, candidate);
+            ranked.offer(slot, scan.score(slot, kernel.dot(query, candidate, 0)));
+        }
+        return ranked.drain();
+    }
+
+    private TopK.Ranked scanInt8(float[] query, int candidates, Scan scan) {
+        byte[] codes = quantize(query);
+        TopK shortlist = new TopK(candidates);
+        SimilarityKernel kernel = getKernel();
+        // The query's own scale is the same for every slot, so the ranking can leave it out,
+        // unless recency is added and the estimate has to be a cosine
+        float queryScale = scan.decays() ? maxAbs(query) / 127f : 1f;
+        int count = scan.size(slotCount());
+        for (int i = 0; i < count; i++) {
+            int slot = scan.slot(i);
+            if (!isLive(slot)) {
+                continue;
+            }
+            int dot = kernel.dot(codes, int8Codes, slot * dimensions);
+            shortlist.offer(slot, scan.score(slot, dot * int8Scales[slot] * queryScale));
+        }
+        return shortlist.drain();
+    }
+
+    private TopK.Ranked scanBinary(float[] query, int candidates, Scan scan) {
+        long[] bits = new long[words];
+        for (int i = 0; i < dimensions; i++) {
+            if (query[i] > 0) {
+                bits[i >>> 6] |= 1L << (i & 63);
+            }
+        }
+        TopK shortlist = new TopK(candidates);
+        int count = scan.size(slotCount());
+        for (int i = 0; i < count; i++) {
+            int slot = scan.slot(i);
+            if (!isLive(slot)) {
+                continue;
+            }
+            int offset = slot * words;
+            int distance = 0;
+            for (int w = 0; w < words; w++) {
+                distance += Long.bitCount(bits[w] ^ binaryCodes[offset + w]);
+            }
+            if (scan.decays()) {
+                // The share of differing signs estimates the angle between the vectors
+                shortlist.offer(slot, scan.score(slot, (float) Math.cos(Math.PI * distance / dimensions)));
+            } else {
+                shortlist.offer(slot, -distance);
+            }
+        }
+        return shortlist.drain();
+    }
+
+    private byte[] quantize(float[] vector) {
+        float max = maxAbs(vector);
+        byte[] codes = new byte[dimensions];
+        if (max > 0) {
+            for (int i = 0; i < dimensions; i++) {
+                codes[i] = (byte) Math.round(vector[i] * 127f / max);
+            }
+        }
+        return codes;
+    }
+
+    private static float maxAbs(float[] vector) {
+        float max = 0;
+        for (float value : vector) {
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+
+    private void ensureCapacity(int slots) {
+        if (quantization == Quantization.INT8) {
+            if (int8Scales.length < slots) {
+                int capacity = Math.max(slots, Math.max(1024, int8Scales.length * 2));
+                int8Scales = Arrays.copyOf(int8Scales, capacity);
+                int8Codes = Arrays.copyOf(int8Codes, Math.multiplyExact(capacity, dimensions));
+            }
+        } else if (binaryCodes.length < slots * words) {
+            int capacity = Math.max(slots, Math.max(1024, binaryCodes.length / words * 2));
+            binaryCodes = Arrays.copyOf(binaryCodes, capacity * words);
+        }
+    }
+
+    /**
+     * Heap bytes taken by the quantized codes.
+     */
+    public long codeBytes() {
+        return int8Codes.length + (long) int8Scales.length * Float.BYTES + (long) binaryCodes.length * Long.BYTES;
+    }
+
+    public long vectorFileBytes() {
+        return vectorFile != null ? vectorFile.sizeBytes() : 0;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    @Override
+    void releaseFiles() {
+        if (vectorFile != null) {
+            vectorFile.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (vectorFile != null) {
+            vectorFile.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.x9chat.vectorstore;
+
+/**
+ * The slots one search visits and how their similarity is turned into a ranking score.
+ * Built under the read lock, so the slot and day arrays it holds are stable for the search.
+ */
+final class Scan {
+
+    static final int UNDATED = Integer.MIN_VALUE;
+
+    // Recency of the last ten years is looked up rather than computed for every slot
+    private static final int RECENCY_TABLE_DAYS = 3650;
+
+    private final int[] candidates;
+    private final int[] slotDays;
+    private final int asOfDay;
+    private final double halfLifeDays;
+    private final float weight;
+    private final float[] recencyByAge;
+
+    private Scan(int[] candidates, int[] slotDays, int asOfDay, double halfLifeDays, float weight) {
+        this.candidates = candidates;
+        this.slotDays = slotDays;
+        this.asOfDay = asOfDay;
+        this.halfLifeDays = halfLifeDays;
+        this.weight = weight;
+        this.recencyByAge = new float[weight > 0 ? RECENCY_TABLE_DAYS : 0];
+        for (int age = 0; age < recencyByAge.length; age++) {
+            recencyByAge[age] = recency(age);
+        }
+    }
+
+    static Scan of(int[] candidates, int[] slotDays, TimeScope scope) {
+        if (!scope.decays()) {
+            return new Scan(candidates, slotDays, 0, 0, 0);
+        }
+        return new Scan(candidates, slotDays, (int) scope.asOf().toEpochDay(), scope.halfLifeDays(), (float) scope.weight());
+    }
+
+    /**
+     * Number of slots to visit when the store has handed out slotCount slots.
+     */
+    int size(int slotCount) {
+        return candidates != null ? candidates.length : slotCount;
+    }
+
+    /**
+     * The i-th slot to visit. Every slot when there is no window, the slots dated inside it otherwise.
+     */
+    int slot(int i) {
+        return candidates != null ? candidates[i] : i;
+    }
+
+    /**
+     * True when every slot is visited, so a scan must still skip dead ones.
+     */
+    boolean scansAll() {
+        return candidates == null;
+    }
+
+    boolean decays() {
+        return weight > 0;
+    }
+
+    float score(int slot, float similarity) {
+        if (weight == 0) {
+            return similarity;
+        }
+        int day = slotDays[slot];
+        if (day == UNDATED) {
+            // Neither favoured nor penalised against dated notes
+            return similarity;
+        }
+        int age = Math.max(0, asOfDay - day);
+        float recency = age < recencyByAge.length ? recencyByAge[age] : recency(age);
+        return (1 - weight) * similarity + weight * recency;
+    }
+
+    private float recency(int age) {
+        return (float) Math.pow(0.5, age / halfLifeDays);
+    }
+}
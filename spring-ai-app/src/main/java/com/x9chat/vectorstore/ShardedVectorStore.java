@@ -0,0 +1,353 @@
+package com.x9chat.vectorstore;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Partitions documents into independent stores, one per user or per hash bucket, and searches
+ * them together.
+ *
+ * A query is scored by every shard at once, one virtual thread each, and the per-shard top-K
+ * lists are merged with a heap. Each shard has its own lock, so re-embedding one user only
+ * blocks searches of that user's shard, and a shard can be compacted into a fresh store while
+ * the others keep serving. Shards are created on first use by the factory, which is given a
+ * name that is unique per shard instance, e.g. to derive a vectors file for a quantized shard.
+ */
+public class ShardedVectorStore implements EmbeddingVectorStore, SmartLifecycle, AutoCloseable {
+
+    private static final String UNKNOWN_USER = "unknown";
+    // Usernames are directory names, so they never contain it
+    private static final String GENERATION_SEPARATOR = "/";
+
+    private final EmbeddingModel embeddingModel;
+    private final Sharding sharding;
+    private final int hashShards;
+    private final Function<String, AbstractEmbeddingVectorStore> shardFactory;
+
+    private final ConcurrentMap<String, AbstractEmbeddingVectorStore> shards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> shardById = new ConcurrentHashMap<>();
+    // Serialises writes and rebuilds per shard; searches never take it
+    private final ConcurrentMap<String, Object> shardLocks = new ConcurrentHashMap<>();
+    private final AtomicInteger generation = new AtomicInteger();
+    // Searches hold the read side while they use the shards they looked up; a replaced shard
+    // is closed under the write side, so no search is still reading its files
+    private final ReentrantReadWriteLock retiring = new ReentrantReadWriteLock();
+    private volatile boolean running;
+
+    public ShardedVectorStore(EmbeddingModel embeddingModel, Sharding sharding, int hashShards,
+                              Function<String, AbstractEmbeddingVectorStore> shardFactory) {
+        if (sharding == Sharding.NONE) {
+            throw new IllegalArgumentException("ShardedVectorStore needs user or hash sharding");
+        }
+        if (sharding == Sharding.HASH && hashShards < 1) {
+            throw new IllegalArgumentException("Hash sharding needs at least one shard");
+        }
+        this.embeddingModel = embeddingModel;
+        this.sharding = sharding;
+        this.hashShards = hashShards;
+        this.shardFactory = shardFactory;
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        List<float[]> embeddings = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            embeddings.add(embeddingModel.embed(document));
+        }
+        add(documents, embeddings);
+    }
+
+    @Override
+    public void add(List<Document> documents, List<float[]> embeddings) {
+        if (documents.size() != embeddings.size()) {
+            throw new IllegalArgumentException("Got " + embeddings.size() + " embeddings for " + documents.size() + " documents");
+        }
+        Map<String, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            byShard.computeIfAbsent(shardFor(documents.get(i)), key -> new ArrayList<>()).add(i);
+        }
+
+        byShard.forEach((key, indexes) -> {
+            List<Document> shardDocuments = new ArrayList<>(indexes.size());
+            List<float[]> shardEmbeddings = new ArrayList<>(indexes.size());
+            for (int index : indexes) {
+                shardDocuments.add(documents.get(index));
+                shardEmbeddings.add(embeddings.get(index));
+            }
+            Map<String, List<String>> moved = new LinkedHashMap<>();
+            synchronized (lockFor(key)) {
+                shards.computeIfAbsent(key, this::newShard).add(shardDocuments, shardEmbeddings);
+                for (Document document : shardDocuments) {
+                    String previous = shardById.put(document.getId(), key);
+                    if (previous != null && !previous.equals(key)) {
+                        moved.computeIfAbsent(previous, k -> new ArrayList<>()).add(document.getId());
+                    }
+                }
+            }
+            // A document whose user changed has moved shard, so drop the old copy
+            moved.forEach(this::deleteFromShard);
+        });
+    }
+
+    @Override
+    public Optional<Boolean> delete(List<String> ids) {
+        Map<String, List<String>> byShard = new LinkedHashMap<>();
+        for (String id : ids) {
+            String key = shardById.remove(id);
+            if (key != null) {
+                byShard.computeIfAbsent(key, k -> new ArrayList<>()).add(id);
+            }
+        }
+        byShard.forEach(this::deleteFromShard);
+        return Optional.of(true);
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        if (request.getFilterExpression() != null) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support filter expressions");
+        }
+        return similaritySearch(embeddingModel.embed(request.getQuery()), request.getTopK(),
+                request.getSimilarityThreshold());
+    }
+
+    @Override
+    public List<Document> similaritySearch(float[] queryEmbedding, int topK, double similarityThreshold, TimeScope scope) {
+        retiring.readLock().lock();
+        try {
+            return scatter(queryEmbedding, topK, similarityThreshold, scope);
+        } finally {
+            retiring.readLock().unlock();
+        }
+    }
+
+    private List<Document> scatter(float[] queryEmbedding, int topK, double similarityThreshold, TimeScope scope) {
+        List<AbstractEmbeddingVectorStore> targets = List.copyOf(shards.values());
+        if (targets.isEmpty() || topK <= 0) {
+            return List.of();
+        }
+        if (targets.size() == 1) {
+            return targets.get(0).similaritySearch(queryEmbedding, topK, similarityThreshold, scope);
+        }
+
+        List<List<Document>> perShard = new ArrayList<>(targets.size());
+        try (ExecutorService scatter = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<List<Document>>> futures = new ArrayList<>(targets.size());
+            for (AbstractEmbeddingVectorStore shard : targets) {
+                futures.add(scatter.submit(() -> shard.similaritySearch(queryEmbedding, topK, similarityThreshold, scope)));
+            }
+            for (Future<List<Document>> future : futures) {
+                perShard.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while searching shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Shard search failed", e.getCause());
+        }
+        return merge(perShard, topK);
+    }
+
+    @Override
+    public List<Document> keywordSearch(String query, int topK, TimeScope scope) {
+        // A fallback path, so the shards are simply searched in turn
+        List<List<Document>> perShard = new ArrayList<>();
+        retiring.readLock().lock();
+        try {
+            for (AbstractEmbeddingVectorStore shard : List.copyOf(shards.values())) {
+                perShard.add(shard.keywordSearch(query, topK, scope));
+            }
+        } finally {
+            retiring.readLock().unlock();
+        }
+        return merge(perShard, topK);
+    }
+
+    /**
+     * Merges lists that are each sorted by descending score, keeping the topK best overall.
+     */
+    static List<Document> merge(List<List<Document>> rankedLists, int topK) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>(Comparator.comparingDouble(Cursor::score).reversed());
+        for (List<Document> ranked : rankedLists) {
+            if (!ranked.isEmpty()) {
+                heads.add(new Cursor(ranked, 0));
+            }
+        }
+        List<Document> merged = new ArrayList<>(topK);
+        while (merged.size() < topK && !heads.isEmpty()) {
+            Cursor head = heads.poll();
+            merged.add(head.document());
+            if (head.index() + 1 < head.ranked().size()) {
+                heads.add(new Cursor(head.ranked(), head.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Copies a shard's live documents and vectors into a fresh store, dropping freed slots, and
+     * swaps it in. Other shards are untouched and keep serving; searches of this shard see the
+     * old copy until the swap. Returns false if there is no such shard.
+     */
+    public boolean compactShard(String key) {
+        AbstractEmbeddingVectorStore current;
+        int size;
+        synchronized (lockFor(key)) {
+            current = shards.get(key);
+            if (current == null) {
+                return false;
+            }
+            List<Document> documents = new ArrayList<>();
+            List<float[]> vectors = new ArrayList<>();
+            current.forEachDocument((document, vector) -> {
+                documents.add(document);
+                vectors.add(vector);
+            });
+
+            AbstractEmbeddingVectorStore compacted = shardFactory.apply(key + GENERATION_SEPARATOR + generation.incrementAndGet());
+            if (running) {
+                compacted.start();
+            }
+            if (!documents.isEmpty()) {
+                compacted.add(documents, vectors);
+            }
+            shards.put(key, compacted);
+            size = documents.size();
+        }
+
+        retiring.writeLock().lock();
+        try {
+            current.stop();
+            current.close();
+        } finally {
+            retiring.writeLock().unlock();
+        }
+        System.out.println("Compacted shard " + key + " to " + size + " documents");
+        return true;
+    }
+
+    /**
+     * The shard holding the document with this ID, or null if it is not in the store.
+     */
+    public String shardOf(String id) {
+        return shardById.get(id);
+    }
+
+    /**
+     * Document count per shard, ordered by shard name.
+     */
+    public Map<String, Integer> shardSizes() {
+        Map<String, Integer> sizes = new TreeMap<>();
+        shards.forEach((key, shard) -> sizes.put(key, shard.size()));
+        return sizes;
+    }
+
+    public Sharding getSharding() {
+        return sharding;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (AbstractEmbeddingVectorStore shard : shards.values()) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    @Override
+    public EmbeddingModel getEmbeddingModel() {
+        return embeddingModel;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        shards.values().forEach(AbstractEmbeddingVectorStore::start);
+    }
+
+    @Override
+    public void stop() {
+        shards.values().forEach(AbstractEmbeddingVectorStore::stop);
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server has drained and start before it accepts requests
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        shards.values().forEach(AbstractEmbeddingVectorStore::close);
+    }
+
+    private String shardFor(Document document) {
+        if (sharding == Sharding.USER) {
+            Object username = document.getMetadata().get("username");
+            return username != null ? username.toString() : UNKNOWN_USER;
+        }
+        return "hash-" + Math.floorMod(document.getId().hashCode(), hashShards);
+    }
+
+    private AbstractEmbeddingVectorStore newShard(String key) {
+        AbstractEmbeddingVectorStore shard = shardFactory.apply(key);
+        if (running) {
+            shard.start();
+        }
+        return shard;
+    }
+
+    private void deleteFromShard(String key, List<String> ids) {
+        synchronized (lockFor(key)) {
+            AbstractEmbeddingVectorStore shard = shards.get(key);
+            if (shard != null) {
+                shard.delete(ids);
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return shardLocks.computeIfAbsent(key, k -> new Object());
+    }
+
+    private record Cursor(List<Document> ranked, int index) {
+
+        Document document() {
+            return ranked.get(index);
+        }
+
+        double score() {
+            return ranked.get(index).getScore();
+        }
+    }
+}
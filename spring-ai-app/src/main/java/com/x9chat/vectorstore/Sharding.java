@@ -0,0 +1,24 @@
+package com.x9chat.vectorstore;
+
+/**
+ * How documents are partitioned across the shards of a ShardedVectorStore.
+ */
+public enum Sharding {
+
+    /** One flat store. */
+    NONE,
+
+    /** One shard per team member, from the "username" metadata. */
+    USER,
+
+    /** A fixed number of shards, picked by hashing the document ID. */
+    HASH;
+
+    public static Sharding fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown vector store sharding '" + value + "', expected none, user or hash");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.x9chat.vectorstore;
+
+/**
+ * Dot products used to score vectors. Stores keep their vectors normalised, so the float
+ * dot product is the cosine similarity.
+ *
+ * Two implementations exist: one built on the incubating JDK Vector API, and a plain scalar
+ * loop for JVMs started without {@code --add-modules jdk.incubator.vector}.
+ */
+public interface SimilarityKernel {
+
+    /**
+     * Dot product of {@code a} with the {@code a.length} floats of {@code b} starting at {@code bOffset}.
+     */
+    float dot(float[] a, float[] b, int bOffset);
+
+    /**
+     * Integer dot product of {@code a} with the {@code a.length} bytes of {@code b} starting at {@code bOffset}.
+     */
+    int dot(byte[] a, byte[] b, int bOffset);
+
+    String name();
+
+    /**
+     * Picks the kernel for this JVM. "auto" uses the Vector API when the module is present
+     * and falls back to the scalar kernel otherwise; "scalar" forces the fallback.
+     */
+    static SimilarityKernel select(String preference) {
+        String choice = preference == null ? "auto" : preference.trim().toLowerCase();
+        switch (choice) {
+            case "scalar":
+                return new ScalarSimilarityKernel();
+            case "auto":
+            case "vector":
+                try {
+                    SimilarityKernel kernel = (SimilarityKernel) Class.forName("com.x9chat.vectorstore.VectorApiSimilarityKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+                    // Force the incubator classes to link now rather than on the first search
+                    kernel.dot(new float[] {1f}, new float[] {1f}, 0);
+                    return kernel;
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    if (choice.equals("vector")) {
+                        throw new IllegalStateException("The Vector API kernel needs --add-modules jdk.incubator.vector", e);
+                    }
+                    return new ScalarSimilarityKernel();
+                }
+            default:
+                throw new IllegalArgumentException("Unknown similarity kernel '" + preference + "', expected auto, vector or scalar");
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.x9chat.vectorstore;
+
+import java.time.LocalDate;
+
+/**
+ * Restricts a search to chunks dated within [from, to], either end open when null, and
+ * optionally blends similarity with how recent each chunk is as of a given day.
+ *
+ * With recency, a chunk scores (1 - weight) * similarity + weight * 0.5^(age / halfLifeDays),
+ * age being its distance in days before asOf. Chunks without a date fall outside any window
+ * and keep their plain similarity, so recency neither lifts nor buries them.
+ */
+public record TimeScope(LocalDate from, LocalDate to, LocalDate asOf, double halfLifeDays, double weight) {
+
+    public static final TimeScope ANY = new TimeScope(null, null, null, 0, 0);
+
+    public TimeScope {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Window starts on " + from + ", after it ends on " + to);
+        }
+        if (weight < 0 || weight > 1) {
+            throw new IllegalArgumentException("Recency weight must be between 0 and 1, got " + weight);
+        }
+    }
+
+    public TimeScope withWindow(LocalDate from, LocalDate to) {
+        return new TimeScope(from, to, asOf, halfLifeDays, weight);
+    }
+
+    public TimeScope withRecency(LocalDate asOf, double halfLifeDays, double weight) {
+        return new TimeScope(from, to, asOf, halfLifeDays, weight);
+    }
+
+    public boolean hasWindow() {
+        return from != null || to != null;
+    }
+
+    public boolean decays() {
+        return asOf != null && halfLifeDays > 0 && weight > 0;
+    }
+}
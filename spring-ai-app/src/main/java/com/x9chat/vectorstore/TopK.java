@@ -0,0 +1,105 @@
+package com.x9chat.vectorstore;
+
+/**
+ * Keeps the k highest-scoring slots seen so far in a min-heap over primitive arrays,
+ * so a full scan allocates nothing per candidate.
+ */
+final class TopK {
+
+    private final int[] slots;
+    private final float[] scores;
+    private int size;
+
+    TopK(int k) {
+        this.slots = new int[Math.max(k, 1)];
+        this.scores = new float[Math.max(k, 1)];
+    }
+
+    /**
+     * Lowest score currently kept, or negative infinity while the heap is not yet full.
+     */
+    float threshold() {
+        return size < slots.length ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    void offer(int slot, float score) {
+        if (size < slots.length) {
+            slots[size] = slot;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (score > scores[0]) {
+            slots[0] = slot;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Slots and their scores in descending score order. Empties the heap.
+     */
+    Ranked drain() {
+        int[] orderedSlots = new int[size];
+        float[] orderedScores = new float[size];
+        for (int i = orderedSlots.length - 1; i >= 0; i--) {
+            orderedSlots[i] = slots[0];
+            orderedScores[i] = scores[0];
+            removeMin();
+        }
+        return new Ranked(orderedSlots, orderedScores);
+    }
+
+    private void removeMin() {
+        size--;
+        slots[0] = slots[size];
+        scores[0] = scores[size];
+        siftDown(0);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= scores[index]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left + 1 < size && scores[left + 1] < scores[left] ? left + 1 : left;
+            if (scores[index] <= scores[smallest]) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int slot = slots[a];
+        slots[a] = slots[b];
+        slots[b] = slot;
+        float score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+    }
+
+    record Ranked(int[] slots, float[] scores) {
+
+        static final Ranked EMPTY = new Ranked(new int[0], new float[0]);
+
+        int size() {
+            return slots.length;
+        }
+    }
+}
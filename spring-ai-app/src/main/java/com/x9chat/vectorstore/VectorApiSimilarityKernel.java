@@ -0,0 +1,75 @@
+package com.x9chat.vectorstore;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD kernel on jdk.incubator.vector, using the widest vectors the CPU supports.
+ *
+ * Only loaded through SimilarityKernel.select, so a JVM without the incubator module never
+ * links this class.
+ */
+final class VectorApiSimilarityKernel implements SimilarityKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // Bytes are widened to ints lane for lane, so they are loaded a quarter-width vector at a time
+    private static final VectorSpecies<Byte> BYTES = byteSpecies();
+
+    @Override
+    public float dot(float[] a, float[] b, int bOffset) {
+        int length = a.length;
+        int bound = FLOATS.loopBound(length);
+        FloatVector sum = FloatVector.zero(FLOATS);
+        int i = 0;
+        for (; i < bound; i += FLOATS.length()) {
+            FloatVector va = FloatVector.fromArray(FLOATS, a, i);
+            FloatVector vb = FloatVector.fromArray(FLOATS, b, bOffset + i);
+            sum = va.fma(vb, sum);
+        }
+        float result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            result += a[i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public int dot(byte[] a, byte[] b, int bOffset) {
+        int length = a.length;
+        int i = 0;
+        int result = 0;
+        if (BYTES != null) {
+            int bound = BYTES.loopBound(length);
+            IntVector sum = IntVector.zero(INTS);
+            for (; i < bound; i += BYTES.length()) {
+                IntVector va = (IntVector) ByteVector.fromArray(BYTES, a, i).convertShape(VectorOperators.B2I, INTS, 0);
+                IntVector vb = (IntVector) ByteVector.fromArray(BYTES, b, bOffset + i).convertShape(VectorOperators.B2I, INTS, 0);
+                sum = sum.add(va.mul(vb));
+            }
+            result = sum.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            result += a[i] * b[bOffset + i];
+        }
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "vector-api (" + FLOATS.length() + " float lanes)";
+    }
+
+    private static VectorSpecies<Byte> byteSpecies() {
+        try {
+            return VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+        } catch (IllegalArgumentException e) {
+            // No vector shape that narrow (e.g. 128-bit NEON); the byte kernel stays scalar
+            return null;
+        }
+    }
+}
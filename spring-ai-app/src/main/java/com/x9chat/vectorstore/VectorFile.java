@@ -0,0 +1,155 @@
+package com.x9chat.vectorstore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fixed-width float vectors stored on disk by slot number.
+ *
+ * Only the rescoring shortlist is ever read back, so the file is accessed with positional
+ * reads and left to the page cache rather than held on the heap. The file is emptied when
+ * first opened, since the index itself is rebuilt at startup. release() closes the channel but
+ * keeps the file, which is reopened on next use, so no descriptor is open across a CRaC
+ * checkpoint. FileChannel closes itself when a thread using it is interrupted, e.g. a cancelled
+ * shard search; the next access reopens it, and other threads caught by the close retry once.
+ */
+final class VectorFile implements AutoCloseable {
+
+    private final Path path;
+    private volatile FileChannel channel;
+    private boolean opened;
+    private final int dimensions;
+    private final int vectorBytes;
+
+    VectorFile(Path path, int dimensions) {
+        this.path = path;
+        this.dimensions = dimensions;
+        this.vectorBytes = dimensions * Float.BYTES;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open vector file " + path, e);
+        }
+    }
+
+    void write(int slot, float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        try {
+            withChannel(channel -> {
+                buffer.rewind();
+                long position = (long) slot * vectorBytes;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write vector " + slot + " to " + path, e);
+        }
+    }
+
+    /**
+     * Reads a slot into the given array, using the caller's buffer to avoid allocating per read.
+     */
+    void read(int slot, ByteBuffer buffer, float[] into) {
+        try {
+            withChannel(channel -> {
+                buffer.clear();
+                long position = (long) slot * vectorBytes;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of file at slot " + slot);
+                    }
+                    position += read;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read vector " + slot + " from " + path, e);
+        }
+        buffer.flip();
+        buffer.asFloatBuffer().get(into);
+    }
+
+    ByteBuffer newBuffer() {
+        return ByteBuffer.allocateDirect(vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    long sizeBytes() {
+        try {
+            return channel().size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    synchronized void release() {
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Could not close vector file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private void withChannel(ChannelAccess access) throws IOException {
+        try {
+            access.run(channel());
+        } catch (ClosedChannelException e) {
+            // Closed under us by another thread's interrupt; an interrupted caller gives up
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            access.run(channel());
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel current = channel;
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        synchronized (this) {
+            if (channel == null || !channel.isOpen()) {
+                // Only the first open starts over; a reopen keeps the vectors written so far
+                channel = opened
+                        ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                        : FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                opened = true;
+            }
+            return channel;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChannelAccess {
+        void run(FileChannel channel) throws IOException;
+    }
+
+    @Override
+    public void close() {
+        release();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not remove vector file " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.x9chat.service;
+
+import com.x9chat.vectorstore.TimeScope;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DateWindowTest {
+
+    // A Wednesday
+    private static final LocalDate TODAY = LocalDate.of(2024, 5, 15);
+
+    @Test
+    void lastNCountsBackFromToday() {
+        assertWindow("notes from the last 7 days", "2024-05-09", "2024-05-15");
+        assertWindow("anything in the past 2 weeks?", "2024-05-02", "2024-05-15");
+        assertWindow("blockers over the previous 3 months", "2024-02-16", "2024-05-15");
+        assertWindow("what happened in the last 1 day", "2024-05-15", "2024-05-15");
+    }
+
+    @Test
+    void lastZeroIsNoWindow() {
+        assertThat(parse("notes from the last 0 days")).isEmpty();
+        assertThat(parse("the past 0 weeks")).isEmpty();
+    }
+
+    @Test
+    void weeksStartOnMonday() {
+        assertWindow("how was this week", "2024-05-13", "2024-05-15");
+        assertWindow("what came up last week", "2024-05-06", "2024-05-12");
+        assertWindow("over the past week", "2024-05-09", "2024-05-15");
+    }
+
+    @Test
+    void monthsAreCalendarMonths() {
+        assertWindow("progress this month", "2024-05-01", "2024-05-15");
+        assertWindow("what happened last month", "2024-04-01", "2024-04-30");
+        assertWindow("1:1s in march", "2024-03-01", "2024-03-31");
+        // A month that has not started this year means last year's
+        assertWindow("1:1s in june", "2023-06-01", "2023-06-30");
+    }
+
+    @Test
+    void yearOnlyWhenItEndsThePhrase() {
+        assertWindow("what did alice work on in 2023?", "2023-01-01", "2023-12-31");
+        assertWindow("notes in 2022 about the migration", "2022-01-01", "2022-12-31");
+        assertWindow("how was morale in 2023", "2023-01-01", "2023-12-31");
+        assertThat(parse("which change came in 2000 lines over budget")).isEmpty();
+        assertThat(parse("a refactor in 1200 steps")).isEmpty();
+    }
+
+    @Test
+    void parsedWindowsAlwaysMakeAValidScope() {
+        for (String question : new String[] {"last 0 days", "last 1 day", "last week", "in 2024", "since 2024-05-20"}) {
+            parse(question).ifPresent(window -> TimeScope.ANY.withWindow(window.from(), window.to()));
+        }
+    }
+
+    private static Optional<DateWindow> parse(String question) {
+        return DateWindow.parse(question, TODAY);
+    }
+
+    private static void assertWindow(String question, String from, String to) {
+        assertThat(parse(question)).as(question).hasValueSatisfying(window -> {
+            assertThat(window.from()).isEqualTo(LocalDate.parse(from));
+            assertThat(window.to()).isEqualTo(LocalDate.parse(to));
+        });
+    }
+}
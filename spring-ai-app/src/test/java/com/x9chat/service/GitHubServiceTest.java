@@ -0,0 +1,198 @@
+package com.x9chat.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs recorded GitHub payloads through the streaming parsers and checks them against the
+ * readTree walk they replaced.
+ */
+class GitHubServiceTest {
+
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 5, 1, 0, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private GitHubService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new GitHubService(new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+        service.shutdown();
+    }
+
+    @Test
+    void eventsPageMatchesTheTreeWalk() throws IOException {
+        List<String> streamed;
+        try (JsonParser parser = parser(resource("events.json"))) {
+            streamed = service.parseRecentRepositories(parser, CUTOFF);
+        }
+
+        assertThat(streamed).containsExactly("x9/billing-service", "x9/team-dashboard");
+        assertThat(streamed).isEqualTo(treeRecentRepositories(objectMapper.readTree(resource("events.json")), CUTOFF));
+    }
+
+    @Test
+    void commitsPageMatchesTheTreeWalk() throws IOException {
+        List<GitHubService.CommitData> streamed;
+        try (JsonParser parser = parser(resource("commits.json"))) {
+            streamed = service.parseCommits(parser, "x9/billing-service");
+        }
+        List<GitHubService.CommitData> tree =
+                treeCommits(objectMapper.readTree(resource("commits.json")), "x9/billing-service");
+
+        assertThat(streamed).hasSize(2);
+        assertThat(streamed.get(0).getMessage()).startsWith("Retry failed charges with backoff\n\n");
+        assertThat(streamed).usingRecursiveFieldByFieldElementComparator().isEqualTo(tree);
+    }
+
+    @Test
+    void contributionCalendarMatchesTheTreeWalk() throws IOException {
+        GitHubService.ContributionData streamed;
+        try (JsonParser parser = parser(resource("contributions.json"))) {
+            streamed = service.parseContributionData(parser, "alice-dev");
+        }
+        JsonNode userData = objectMapper.readTree(resource("contributions.json")).path("data").path("user");
+        GitHubService.ContributionData tree = service.parseContributionData(userData, "alice-dev");
+
+        assertThat(streamed).isNotNull();
+        assertThat(streamed.getTotalContributions()).isEqualTo(54).isEqualTo(tree.getTotalContributions());
+        assertThat(streamed.getDailyContributions()).hasSize(24)
+                .usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(tree.getDailyContributions());
+        assertThat(streamed.getDailyContributions().get(0).getWeekday()).isZero();
+        assertThat(streamed.getInsights())
+                .contains("Commits: 38, Issues: 4, Pull Requests: 9, Reviews: 12",
+                        "Private repository contributions: 6",
+                        "PRIMARY LANGUAGES: TypeScript (2 repos), Go (1 repos)")
+                .isEqualTo(tree.getInsights());
+    }
+
+    @Test
+    void responseWithoutAUserHasNoContributionData() throws IOException {
+        try (JsonParser parser = parser("{\"data\":{\"user\":null},\"errors\":[{\"message\":\"not found\"}]}")) {
+            assertThat(service.parseContributionData(parser, "ghost")).isNull();
+        }
+    }
+
+    @Test
+    void nullArrayElementsAreSkippedNotTheEndOfThePage() throws IOException {
+        String events = """
+                [null, 7, {"type":"PushEvent","created_at":"2024-05-10T10:00:00Z","repo":{"name":"x9/a"}},
+                 [], {"type":"CreateEvent","created_at":"2024-05-11T10:00:00Z","repo":{"name":"x9/b"}}]
+                """;
+        try (JsonParser parser = parser(events)) {
+            assertThat(service.parseRecentRepositories(parser, CUTOFF)).containsExactly("x9/a", "x9/b");
+        }
+
+        String commits = """
+                [null, {"sha":"abc","html_url":null,
+                        "commit":{"message":"m","author":{"name":"Alice","date":"2024-05-10T10:00:00Z"}}}]
+                """;
+        try (JsonParser parser = parser(commits)) {
+            assertThat(service.parseCommits(parser, "x9/a"))
+                    .extracting(GitHubService.CommitData::getSha).containsExactly("abc");
+        }
+    }
+
+    @Test
+    void eventsWithoutARepoOrDateAreSkipped() throws IOException {
+        String events = """
+                [{"type":"PushEvent","created_at":"2024-05-10T10:00:00Z","repo":null},
+                 {"type":"PushEvent","repo":{"name":"x9/undated"}},
+                 {"type":"PushEvent","created_at":"2024-05-12T10:00:00Z","repo":{"id":1}},
+                 {"type":"PushEvent","created_at":"2024-05-13T10:00:00Z","repo":{"name":"x9/kept"}}]
+                """;
+        try (JsonParser parser = parser(events)) {
+            assertThat(service.parseRecentRepositories(parser, CUTOFF)).containsExactly("x9/kept");
+        }
+    }
+
+    @Test
+    void commitsMissingAuthorDetailsAreSkipped() throws IOException {
+        String commits = """
+                [{"sha":"a1","commit":{"message":"no author"}},
+                 {"sha":"a2","commit":{"message":"null author","author":null}},
+                 {"sha":"a3","commit":{"message":"no date","author":{"name":"Alice"}}},
+                 {"sha":"a4","html_url":"https://github.com/x9/a/commit/a4",
+                  "commit":{"message":"kept","author":{"name":"Alice","date":"2024-05-10T10:00:00Z"}}}]
+                """;
+        try (JsonParser parser = parser(commits)) {
+            assertThat(service.parseCommits(parser, "x9/a"))
+                    .extracting(GitHubService.CommitData::getSha).containsExactly("a4");
+        }
+    }
+
+    // The readTree walks the streaming parsers replaced, kept as the reference they must agree with
+
+    private static List<String> treeRecentRepositories(JsonNode events, LocalDateTime cutoffDate) {
+        List<String> repos = new ArrayList<>();
+        for (JsonNode event : events) {
+            String eventType = event.get("type").asText();
+            String createdAt = event.get("created_at").asText();
+
+            LocalDateTime eventDate = LocalDateTime.parse(createdAt, DateTimeFormatter.ISO_DATE_TIME);
+            if (eventDate.isBefore(cutoffDate)) {
+                continue;
+            }
+            if ("PushEvent".equals(eventType) || "CreateEvent".equals(eventType)) {
+                JsonNode repo = event.get("repo");
+                if (repo != null) {
+                    String repoName = repo.get("name").asText();
+                    if (!repos.contains(repoName)) {
+                        repos.add(repoName);
+                    }
+                }
+            }
+        }
+        return repos;
+    }
+
+    private static List<GitHubService.CommitData> treeCommits(JsonNode commits, String repoName) {
+        List<GitHubService.CommitData> commitList = new ArrayList<>();
+        for (JsonNode commitNode : commits) {
+            JsonNode commit = commitNode.get("commit");
+            JsonNode author = commit.get("author");
+            commitList.add(new GitHubService.CommitData(
+                    commitNode.get("sha").asText(),
+                    commit.get("message").asText(),
+                    author.get("name").asText(),
+                    author.get("date").asText(),
+                    repoName,
+                    commitNode.get("html_url").asText()));
+        }
+        return commitList;
+    }
+
+    private JsonParser parser(String json) throws IOException {
+        return objectMapper.getFactory().createParser(json);
+    }
+
+    private JsonParser parser(InputStream json) throws IOException {
+        return objectMapper.getFactory().createParser(json);
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = GitHubServiceTest.class.getResourceAsStream("/github/" + name);
+        assertThat(in).as("test resource github/%s", name).isNotNull();
+        return in;
+    }
+}
@@ -0,0 +1,243 @@
+package com.x9chat.service;
+
+import com.x9chat.service.ReinforcementService.Reinforcement;
+import com.x9chat.service.ReinforcementService.UserReinforcements;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReinforcementServiceTest {
+
+    private static final String USER = "alice";
+
+    @TempDir
+    Path documents;
+
+    private final List<ReinforcementService> services = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        services.forEach(ReinforcementService::shutdown);
+    }
+
+    @Test
+    void concurrentConditionalWritesOnTheSameRevisionConflict() throws Exception {
+        ReinforcementService service = start("journal");
+        long revision = service.addReinforcement(USER, reinforcement("Write design docs"), null).getRevision();
+
+        int writers = 8;
+        CountDownLatch ready = new CountDownLatch(writers);
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<UserReinforcements>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < writers; i++) {
+                Reinforcement change = reinforcement("Change " + i);
+                Callable<UserReinforcements> write = () -> {
+                    ready.countDown();
+                    ready.await();
+                    return service.addReinforcement(USER, change, revision);
+                };
+                results.add(executor.submit(write));
+            }
+
+            int succeeded = 0;
+            int conflicts = 0;
+            for (Future<UserReinforcements> result : results) {
+                try {
+                    assertThat(result.get().getRevision()).isEqualTo(revision + 1);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(ReinforcementConflictException.class);
+                    conflicts++;
+                }
+            }
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(conflicts).isEqualTo(writers - 1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        UserReinforcements current = service.getUserReinforcements(USER);
+        assertThat(current.getRevision()).isEqualTo(revision + 1);
+        assertThat(current.getReinforcements()).hasSize(2);
+    }
+
+    @Test
+    void revisionStaysStableAcrossReadsWithOnlyAJournal() throws Exception {
+        ReinforcementService service = start("journal");
+        service.addReinforcement(USER, reinforcement("Pair on the billing service"), null);
+        service.flush();
+        assertThat(snapshot()).doesNotExist();
+
+        // Reads of a user known only from the journal must not move the revision
+        long revision = service.getUserReinforcements(USER).getRevision();
+        assertThat(service.getUserReinforcements(USER).getRevision()).isEqualTo(revision);
+        assertThat(service.getUserReinforcements(USER).getReinforcements()).hasSize(1);
+
+        UserReinforcements updated = service.addReinforcement(USER, reinforcement("Run the retro"), revision);
+        assertThat(updated.getRevision()).isEqualTo(revision + 1);
+        assertThatThrownBy(() -> service.addReinforcement(USER, reinforcement("Stale"), revision))
+                .isInstanceOf(ReinforcementConflictException.class);
+    }
+
+    @Test
+    void changesToAMissingReinforcementAreRejectedWithoutMovingTheRevision() throws Exception {
+        ReinforcementService service = start("journal");
+        long revision = service.addReinforcement(USER, reinforcement("Review the roadmap"), null).getRevision();
+
+        assertThatThrownBy(() -> service.updateReinforcement(USER, 7, reinforcement("Nope"), null))
+                .isInstanceOf(ReinforcementNotFoundException.class);
+        assertThatThrownBy(() -> service.deleteReinforcement(USER, 7, revision))
+                .isInstanceOf(ReinforcementNotFoundException.class);
+        assertThat(service.getUserReinforcements(USER).getRevision()).isEqualTo(revision);
+    }
+
+    @Test
+    void journalIsReplayedAfterACrash() throws Exception {
+        ReinforcementService crashed = start("journal");
+        crashed.addReinforcement(USER, reinforcement("Mentor new hires"), null);
+        crashed.addReinforcement(USER, reinforcement("Own the release checklist"), null);
+        crashed.updateReinforcement(USER, 1, reinforcement("Mentor new hires weekly"), null);
+        crashed.deleteReinforcement(USER, 2, null);
+        long revision = crashed.getUserReinforcements(USER).getRevision();
+
+        // No shutdown, so nothing was compacted; the last append was cut short
+        Path journal = documents.resolve(USER).resolve(ReinforcementJournal.JOURNAL_FILE);
+        Files.writeString(journal, "{\"op\":\"PUT\",\"id\":3,\"reinfor", StandardOpenOption.APPEND);
+
+        ReinforcementService restarted = start("journal");
+        UserReinforcements recovered = restarted.getUserReinforcements(USER);
+        assertThat(recovered.getRevision()).isEqualTo(revision);
+        assertThat(recovered.getReinforcements()).extracting(Reinforcement::getDescription)
+                .containsExactly("Mentor new hires weekly");
+        assertThat(Files.size(journal)).isZero();
+
+        // The next change starts on a line of its own and survives another restart
+        restarted.addReinforcement(USER, reinforcement("Lead the incident review"), revision);
+        ReinforcementService again = start("journal");
+        assertThat(again.getUserReinforcements(USER).getReinforcements()).extracting(Reinforcement::getDescription)
+                .containsExactly("Mentor new hires weekly", "Lead the incident review");
+    }
+
+    @Test
+    void snapshotIsWrittenBehindAfterTheFlushDelay() throws Exception {
+        ReinforcementService service = start("snapshot", 500L);
+        service.addReinforcement(USER, reinforcement("Shadow the on-call rotation"), null);
+        service.addReinforcement(USER, reinforcement("Write the onboarding guide"), null);
+        assertThat(snapshot()).doesNotExist();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(snapshot()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(Files.readString(snapshot()))
+                .contains("Shadow the on-call rotation", "Write the onboarding guide");
+        // Written to a temporary file and moved into place
+        assertThat(snapshot().resolveSibling("reinforcements.json.tmp")).doesNotExist();
+    }
+
+    @Test
+    void externalEditsToTheSnapshotAreReloaded() throws Exception {
+        ReinforcementService service = start("snapshot");
+        long revision = service.addReinforcement(USER, reinforcement("Review pull requests daily"), null).getRevision();
+        service.flush();
+
+        Files.writeString(snapshot(), """
+                {"version":"1.0","revision":0,"lastUpdated":"2024-05-01","reinforcements":[
+                  {"id":1,"category":"growth","description":"Edited by hand","priority":"high","status":"active"},
+                  {"id":4,"category":"growth","description":"Added by hand","priority":"low","status":"active"}]}
+                """);
+        Files.setLastModifiedTime(snapshot(), FileTime.from(Instant.now().plusSeconds(5)));
+
+        UserReinforcements reloaded = service.getUserReinforcements(USER);
+        assertThat(reloaded.getReinforcements()).extracting(Reinforcement::getDescription)
+                .containsExactly("Edited by hand", "Added by hand");
+        // Clients holding the revision from before the edit must not overwrite it
+        assertThat(reloaded.getRevision()).isGreaterThan(revision);
+        assertThatThrownBy(() -> service.addReinforcement(USER, reinforcement("Stale"), revision))
+                .isInstanceOf(ReinforcementConflictException.class);
+        assertThat(service.addReinforcement(USER, reinforcement("Next"), null).getReinforcements())
+                .extracting(Reinforcement::getId).containsExactly(1, 4, 5);
+    }
+
+    @Test
+    void shutdownFlushesPendingChangesWithoutWaitingForTheDelay() throws Exception {
+        ReinforcementService service = start("snapshot");
+        service.addReinforcement(USER, reinforcement("Prepare the quarterly demo"), null);
+        assertThat(snapshot()).doesNotExist();
+
+        long started = System.nanoTime();
+        service.shutdown();
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(2));
+        assertThat(snapshot()).exists();
+
+        ReinforcementService restarted = start("snapshot");
+        assertThat(restarted.getUserReinforcements(USER).getReinforcements()).extracting(Reinforcement::getDescription)
+                .containsExactly("Prepare the quarterly demo");
+    }
+
+    @Test
+    void readingAnUnknownUserCreatesNothing() throws Exception {
+        for (String storage : List.of("snapshot", "journal")) {
+            ReinforcementService service = start(storage);
+            assertThat(service.hasReinforcements(USER)).isFalse();
+            assertThat(service.getUserReinforcements(USER).getReinforcements()).isEmpty();
+            assertThat(service.hasReinforcements(USER)).isFalse();
+            assertThat(service.getAllUsers()).doesNotContain(USER);
+
+            service.shutdown();
+            assertThat(documents.resolve(USER)).doesNotExist();
+        }
+
+        ReinforcementService service = start("snapshot");
+        service.addReinforcement(USER, reinforcement("Review the on-call runbook"), null);
+        assertThat(service.hasReinforcements(USER)).isTrue();
+        service.flush();
+        assertThat(start("snapshot").hasReinforcements(USER)).isTrue();
+    }
+
+    private ReinforcementService start(String storage) throws Exception {
+        return start(storage, 60_000L);
+    }
+
+    private ReinforcementService start(String storage, long flushDelayMs) throws Exception {
+        ReinforcementService service = new ReinforcementService(event -> { });
+        ReflectionTestUtils.setField(service, "documentsPath", documents.toString());
+        ReflectionTestUtils.setField(service, "flushDelayMs", flushDelayMs);
+        ReflectionTestUtils.setField(service, "storageMode", storage);
+        ReflectionTestUtils.setField(service, "compactThreshold", 500);
+        ReflectionTestUtils.setField(service, "compactIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(service, "journalFsync", false);
+        service.init();
+        services.add(service);
+        return service;
+    }
+
+    private Path snapshot() {
+        return documents.resolve(USER).resolve("reinforcements.json");
+    }
+
+    private static Reinforcement reinforcement(String description) {
+        return new Reinforcement(0, "growth", description, "medium", "active", null, null);
+    }
+}
@@ -28,6 +28,7 @@ if ! curl -s http://localhost:11434/api/version &> /dev/null; then
     echo "Please ensure Ollama is installed and run: ollama serve"
     echo "Also make sure you have the required models:"
     echo "  ollama pull llama3.2"
+    echo "  ollama pull llama3.2:1b"
     echo "  ollama pull nomic-embed-text"
     exit 1
 fi
@@ -36,9 +37,18 @@ echo "✅ Ollama is already running"
 
 # Check required models
 echo "🔍 Checking required models..."
-if ! ollama list | grep -q "llama3.2" || ! ollama list | grep -q "nomic-embed-text"; then
-    echo "⚠️  Required models not found. Installing..."
+# Match whole names: "llama3.2" alone would also match the llama3.2:1b line
+MODELS=$(ollama list)
+if ! echo "$MODELS" | grep -qE "^llama3\.2:latest[[:space:]]"; then
+    echo "⚠️  llama3.2 not found. Installing..."
     ollama pull llama3.2
+fi
+if ! echo "$MODELS" | grep -qE "^llama3\.2:1b[[:space:]]"; then
+    echo "⚠️  llama3.2:1b not found. Installing..."
+    ollama pull llama3.2:1b
+fi
+if ! echo "$MODELS" | grep -qE "^nomic-embed-text:latest[[:space:]]"; then
+    echo "⚠️  nomic-embed-text not found. Installing..."
     ollama pull nomic-embed-text
 fi
 
@@ -55,12 +55,18 @@ fi
 
 # Check and pull required models
 echo "🔍 Checking required models..."
-if ! ollama list | grep -q "llama3.2"; then
+# Match whole names: "llama3.2" alone would also match the llama3.2:1b line
+if ! ollama list | grep -qE "^llama3\.2:latest[[:space:]]"; then
     echo "📥 Pulling llama3.2 model (this may take a few minutes)..."
     ollama pull llama3.2
 fi
 
-if ! ollama list | grep -q "nomic-embed-text"; then
+if ! ollama list | grep -qE "^llama3\.2:1b[[:space:]]"; then
+    echo "📥 Pulling llama3.2:1b model for quick lookups..."
+    ollama pull llama3.2:1b
+fi
+
+if ! ollama list | grep -qE "^nomic-embed-text:latest[[:space:]]"; then
     echo "📥 Pulling nomic-embed-text model (this may take a few minutes)..."
     ollama pull nomic-embed-text
 fi
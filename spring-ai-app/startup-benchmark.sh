@@ -0,0 +1,95 @@
+#!/bin/bash
+
+# Compares startup modes of X9 Chat AI. For each mode the service is started RUNS times and two
+# times are taken from launch: until /api/status first answers (HTTP up) and until it reports
+# "serving" (chat can answer). Medians are printed. Build first with: mvn -Pfaststart package
+#
+#   ./startup-benchmark.sh [app args]
+#
+# Modes: jar (fat jar), extracted (unpacked jar), cds (unpacked jar + AppCDS archive) and,
+# when CRAC_DIR holds a checkpoint from ./faststart.sh checkpoint, crac (restore).
+# RUNS defaults to 5. DOCS sets app.documents.path (an empty folder by default, so only boot is
+# measured); point it at ../public to include restoring the ingestion checkpoint.
+
+cd "$(dirname "$0")"
+
+JAVA="${JAVA:-java}"
+PORT="${PORT:-8081}"
+RUNS="${RUNS:-5}"
+FASTSTART_DIR="target/faststart"
+FAT_JAR="target/x9-chat-ai-1.0.0.jar"
+JAR="$FASTSTART_DIR/x9-chat-ai-1.0.0.jar"
+ARCHIVE="$FASTSTART_DIR/x9-chat-ai-1.0.0.jsa"
+CRAC_DIR="${CRAC_DIR:-$FASTSTART_DIR/crac}"
+JVM_ARGS="--add-modules jdk.incubator.vector"
+LOG="$FASTSTART_DIR/startup-benchmark.log"
+
+if [ ! -f "$JAR" ] || [ ! -f "$ARCHIVE" ]; then
+    echo "❌ Fast-start build not found. Run: mvn -Pfaststart package"
+    exit 1
+fi
+
+if [ -z "$DOCS" ]; then
+    DOCS="$(mktemp -d)"
+    trap 'rm -rf "$DOCS"' EXIT
+fi
+APP_ARGS=(--server.port="$PORT" --app.documents.path="$DOCS" "$@")
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { if (NR % 2) print values[(NR + 1) / 2]; else print int((values[NR / 2] + values[NR / 2 + 1]) / 2) }'
+}
+
+# Runs one start, printing "<http ms> <serving ms>"
+measure() {
+    local start http serving status pid
+    start=$(now_ms)
+    "$@" > "$LOG" 2>&1 &
+    pid=$!
+
+    while true; do
+        status=$(curl -s "http://localhost:$PORT/api/status")
+        if [ -n "$status" ]; then
+            [ -z "$http" ] && http=$(( $(now_ms) - start ))
+            if echo "$status" | grep -q '"serving":true'; then
+                serving=$(( $(now_ms) - start ))
+                break
+            fi
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "❌ Service exited during startup, see $LOG" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+
+    kill "$pid" 2>/dev/null
+    wait "$pid" 2>/dev/null
+    echo "$http $serving"
+}
+
+run_mode() {
+    local mode="$1"
+    shift
+    local results=()
+    for ((i = 1; i <= RUNS; i++)); do
+        results+=("$(measure "$@")") || return 1
+    done
+    local http serving
+    http=$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)
+    serving=$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)
+    printf "%-10s %12s %12s\n" "$mode" "$http" "$serving"
+}
+
+echo "Median of $RUNS starts, milliseconds from launch"
+printf "%-10s %12s %12s\n" "mode" "http-up" "serving"
+[ -f "$FAT_JAR" ] && run_mode jar "$JAVA" $JVM_ARGS -jar "$FAT_JAR" "${APP_ARGS[@]}"
+run_mode extracted "$JAVA" $JVM_ARGS -jar "$JAR" "${APP_ARGS[@]}"
+run_mode cds "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" $JVM_ARGS -jar "$JAR" "${APP_ARGS[@]}"
+if [ -d "$CRAC_DIR" ]; then
+    # App arguments were fixed when the checkpoint was taken
+    run_mode crac "$JAVA" -XX:CRaCRestoreFrom="$CRAC_DIR"
+fi